@@ -0,0 +1,40 @@
+package com.tjh.util;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+
+@State(Scope.Benchmark)
+public class ClassesBenchmarks {
+    @Param({"2", "100", "10000"})
+    public int size;
+
+    private List<Object> objects;
+
+    @Setup
+    public void setup() {
+        final Object[] samples = {1, 2L, 4.0f, 3.141592654d, BigDecimal.ONE, BigInteger.TEN};
+        objects = new ArrayList<Object>(size);
+        for (int i = 0; i < size; i++) {
+            objects.add(samples[i % samples.length]);
+        }
+    }
+
+    @Benchmark
+    public Set<Class> commonBaseClasses() { return Classes.commonBaseClasses(objects); }
+
+    @Benchmark
+    public Set<Class> assignableTo() { return Classes.assignableTo(BigDecimal.class); }
+
+    @Benchmark
+    public Collection<Class> allInterfacesFor() { return Classes.allInterfacesFor(ArrayList.class); }
+}
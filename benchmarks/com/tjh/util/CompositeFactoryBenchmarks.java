@@ -0,0 +1,77 @@
+package com.tjh.util;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.Collections;
+import java.util.Map;
+
+@State(Scope.Benchmark)
+public class CompositeFactoryBenchmarks {
+    private Composite reflective;
+    private Composite methodHandles;
+    private Composite generated;
+    private Adder replacingReflective;
+    private Adder replacingMethodHandles;
+    private Adder direct;
+    private int value;
+
+    @Setup
+    public void setup() {
+        direct = new AdderImpl();
+        final Namer namer = new NamerImpl();
+        reflective = CompositeFactory.createComposite(Composite.class, direct, namer);
+        methodHandles = CompositeFactory.createComposite(Composite.class, CompositeFactory.Dispatch.METHOD_HANDLES,
+                direct, namer);
+        generated = CompositeFactory.createComposite(Composite.class, CompositeFactory.Dispatch.GENERATED,
+                direct, namer);
+
+        final Map<Method, ThrowingBlock2<Adder, Object[], Object, ? extends Throwable>> none =
+                Collections.emptyMap();
+        replacingReflective = (Adder) Proxy.newProxyInstance(Adder.class.getClassLoader(), new Class<?>[]{Adder.class},
+                new MethodReplacingInvocationHandler<Adder>(direct, none));
+        replacingMethodHandles = (Adder) Proxy.newProxyInstance(Adder.class.getClassLoader(),
+                new Class<?>[]{Adder.class}, new MethodReplacingInvocationHandler<Adder>(Adder.class, direct, none));
+    }
+
+    @Benchmark
+    public int directCall() { return direct.add(value++, 1); }
+
+    @Benchmark
+    public int compositeReflection() { return reflective.add(value++, 1); }
+
+    @Benchmark
+    public int compositeMethodHandles() { return methodHandles.add(value++, 1); }
+
+    @Benchmark
+    public int compositeGenerated() { return generated.add(value++, 1); }
+
+    @Benchmark
+    public int methodReplacingReflection() { return replacingReflective.add(value++, 1); }
+
+    @Benchmark
+    public int methodReplacingMethodHandles() { return replacingMethodHandles.add(value++, 1); }
+
+    public interface Adder {
+        int add(int a, int b);
+    }
+
+    public interface Namer {
+        String name();
+    }
+
+    public interface Composite extends Adder, Namer {
+    }
+
+    public static class AdderImpl implements Adder {
+        public int add(final int a, final int b) { return a + b; }
+    }
+
+    public static class NamerImpl implements Namer {
+        public String name() { return "namer"; }
+    }
+}
@@ -0,0 +1,37 @@
+package com.tjh.util;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Random;
+
+@State(Scope.Benchmark)
+public class FilesBenchmarks {
+    @Param({"1024", "1048576", "67108864"})
+    public int fileSize;
+
+    private File file;
+
+    @Setup
+    public void setup() throws IOException {
+        file = File.createTempFile("FilesBenchmarks", ".bin", Files.getTempDir());
+        final byte[] bytes = new byte[fileSize];
+        new Random(fileSize).nextBytes(bytes);
+        Files.writeBytesToFile(file, bytes);
+    }
+
+    @TearDown
+    public void tearDown() {
+        //noinspection ResultOfMethodCallIgnored
+        file.delete();
+    }
+
+    @Benchmark
+    public byte[] fileBytes() throws IOException { return Files.fileBytes(file); }
+}
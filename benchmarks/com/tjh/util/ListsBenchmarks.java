@@ -0,0 +1,48 @@
+package com.tjh.util;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+@State(Scope.Benchmark)
+public class ListsBenchmarks {
+    @Param({"10", "1000", "100000"})
+    public int size;
+
+    private List<Integer> values;
+
+    private static final Block<Integer, String> TO_STRING = new Block<Integer, String>() {
+        public String invoke(final Integer integer) { return integer.toString(); }
+    };
+
+    private static final Block<Integer, Boolean> EVEN = new Block<Integer, Boolean>() {
+        public Boolean invoke(final Integer integer) { return (integer & 1) == 0; }
+    };
+
+    private static final Block2<Integer, Long, Long> SUM = new Block2<Integer, Long, Long>() {
+        public Long invoke(final Integer integer, final Long total) { return total + integer; }
+    };
+
+    @Setup
+    public void setup() {
+        values = new ArrayList<Integer>(size);
+        for (int i = 0; i < size; i++) {
+            values.add(i);
+        }
+    }
+
+    @Benchmark
+    public Collection<String> collect() { return Lists.collect(values, TO_STRING); }
+
+    @Benchmark
+    public Collection<Integer> select() { return Lists.select(values, EVEN); }
+
+    @Benchmark
+    public Long inject() { return Lists.inject(values, 0L, SUM); }
+}
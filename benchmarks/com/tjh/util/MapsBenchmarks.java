@@ -0,0 +1,90 @@
+package com.tjh.util;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+
+@State(Scope.Benchmark)
+public class MapsBenchmarks {
+    @Param({"10", "1000", "100000"})
+    public int size;
+
+    @Param({"16"})
+    public int keys;
+
+    private List<Integer> values;
+    private Map<Integer, Integer> map;
+    private Map<Integer, Integer> otherMap;
+    private final Map<String, Object> nested = Maps.<String, Object>asMap("a",
+            Maps.<String, Object>asMap("b", Maps.<String, Object>asMap("c", "value")));
+
+    private final Block<Integer, Integer> modulo = new Block<Integer, Integer>() {
+        public Integer invoke(final Integer integer) { return integer % keys; }
+    };
+
+    private final Block2<Integer, Integer, Boolean> even = new Block2<Integer, Integer, Boolean>() {
+        public Boolean invoke(final Integer key, final Integer value) { return (value & 1) == 0; }
+    };
+
+    @Setup
+    public void setup() {
+        values = new ArrayList<Integer>(size);
+        map = new HashMap<Integer, Integer>();
+        otherMap = new HashMap<Integer, Integer>();
+        for (int i = 0; i < size; i++) {
+            values.add(i);
+            map.put(i, i);
+            otherMap.put(i + size / 2, i);
+        }
+    }
+
+    @Benchmark
+    public Map<Integer, Collection<Integer>> index() { return Maps.index(values, modulo); }
+
+    @Benchmark
+    public Map<Integer, Collection<Integer>> parallelIndex() {
+        return Maps.index(ForkJoinPool.commonPool(), values, modulo);
+    }
+
+    @Benchmark
+    public Map<Integer, Long> indexCount() { return Maps.index(values, modulo, Reducers.<Integer>count()); }
+
+    @Benchmark
+    public Map<Integer, Long> parallelIndexCount() {
+        return Maps.index(ForkJoinPool.commonPool(), values, modulo, Reducers.<Integer>count());
+    }
+
+    @Benchmark
+    public Map<Integer, Integer> select() { return Maps.select(map, even); }
+
+    @Benchmark
+    public Map<Integer, Integer> merge() {
+        //noinspection unchecked
+        return Maps.merge(map, otherMap);
+    }
+
+    private final KeyPath keyPath = KeyPath.compile("a.b.c");
+
+    @Benchmark
+    public Object valueFor() { return Maps.valueFor(nested, "a.b.c"); }
+
+    private final Projection projection = Projection.of("a.b.c", "a.b.d", "a.e", "f");
+
+    @Benchmark
+    public Object keyPathGet() { return keyPath.get(nested); }
+
+    @Benchmark
+    public Object[] project() { return projection.project(nested); }
+
+    @Benchmark
+    public Map<String, String> toMap() { return Maps.toMap("{host=example.com, port=8080, user=\"a b\", retry=3}"); }
+}
@@ -0,0 +1,32 @@
+package com.tjh.util;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+@State(Scope.Benchmark)
+public class NullObjectFactoryBenchmarks {
+    private Foo nullFoo;
+
+    @Setup
+    public void setup() { nullFoo = NullObjectFactory.nullObject(Foo.class); }
+
+    @Benchmark
+    public Foo nullObject() { return NullObjectFactory.nullObject(Foo.class); }
+
+    @Benchmark
+    public int invokePrimitive() { return nullFoo.getInt(); }
+
+    @Benchmark
+    public Foo invokeNested() { return nullFoo.getFoo(); }
+
+    @Benchmark
+    public boolean invokeEquals() { return nullFoo.equals(null); }
+
+    public static class Foo {
+        public int getInt() { return 3; }
+
+        public Foo getFoo() { return this; }
+    }
+}
@@ -0,0 +1,61 @@
+package com.tjh.util;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.Iterator;
+import java.util.PrimitiveIterator;
+
+@State(Scope.Benchmark)
+public class RangeBenchmarks {
+    @Param({"10", "10000", "1000000"})
+    public int size;
+
+    private Range<Integer> intRange;
+    private Range<Long> longRange;
+
+    @Setup
+    public void setup() {
+        intRange = new Range<Integer>(0, size - 1);
+        longRange = new Range<Long>(0L, (long) size - 1);
+    }
+
+    @Benchmark
+    public long iterateIntegers() {
+        long result = 0;
+        final Iterator<Integer> iterator = intRange.iterator();
+        while (iterator.hasNext()) {
+            result += iterator.next();
+        }
+        return result;
+    }
+
+    @Benchmark
+    public long iterateLongs() {
+        long result = 0;
+        final Iterator<Long> iterator = longRange.iterator();
+        while (iterator.hasNext()) {
+            result += iterator.next();
+        }
+        return result;
+    }
+
+    @Benchmark
+    public long iterateIntRange() {
+        long result = 0;
+        final PrimitiveIterator.OfInt iterator = new IntRange(0, size - 1).iterator();
+        while (iterator.hasNext()) {
+            result += iterator.nextInt();
+        }
+        return result;
+    }
+
+    @Benchmark
+    public long parallelSumIntRange() { return new IntRange(0, size - 1).parallelStream().asLongStream().sum(); }
+
+    @Benchmark
+    public boolean contains() { return intRange.contains(size / 2); }
+}
@@ -0,0 +1,41 @@
+package com.tjh.util;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Run with <code>-Dbenchmark.args="-prof gc"</code> to see the allocation rate of each call.
+ */
+@State(Scope.Benchmark)
+public class StringsBenchmarks {
+    @Param({"10", "1000"})
+    public int size;
+
+    private String[] strings;
+    private List<String> list;
+
+    @Setup
+    public void setup() {
+        strings = new String[size];
+        list = new ArrayList<String>(size);
+        for (int i = 0; i < size; i++) {
+            strings[i] = "element" + i;
+            list.add(strings[i]);
+        }
+    }
+
+    @Benchmark
+    public String aOrAn() { return Strings.aOrAn("elephant"); }
+
+    @Benchmark
+    public String joinArray() { return Strings.join(",", strings); }
+
+    @Benchmark
+    public String joinList() { return Strings.join(",", list); }
+}
@@ -0,0 +1,36 @@
+package com.tjh.util;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+@State(Scope.Benchmark)
+public class TypesBenchmarks {
+    @Param({"1", "8", "64"})
+    public int arguments;
+
+    private String[] strings;
+    private Class<?>[] scalarTypes;
+    private Class<?>[] arrayType;
+
+    @Setup
+    public void setup() {
+        strings = new String[arguments];
+        scalarTypes = new Class<?>[arguments];
+        final Class<?>[] types = {int.class, long.class, double.class, boolean.class, char.class, String.class};
+        final String[] samples = {"42", "4200000000", "3.14", "true", "x", "string"};
+        for (int i = 0; i < arguments; i++) {
+            strings[i] = samples[i % samples.length];
+            scalarTypes[i] = types[i % types.length];
+        }
+        arrayType = new Class<?>[]{String[].class};
+    }
+
+    @Benchmark
+    public Object[] convertScalars() { return Types.convert(strings, scalarTypes); }
+
+    @Benchmark
+    public Object[] convertArray() { return Types.convert(strings, arrayType); }
+}
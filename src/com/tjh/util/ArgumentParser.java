@@ -10,8 +10,6 @@ import java.util.List;
 import java.util.Map;
 import java.util.NoSuchElementException;
 import java.util.Queue;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 
 /**
  * Makes it convenient and easy to parse command line arguments.
@@ -57,7 +55,6 @@ import java.util.regex.Pattern;
  * }
  */
 public abstract class ArgumentParser {
-    private static final Pattern FLAG_PATTERN = Pattern.compile("^-{0,2}(.+)$");
     private Map<String, Method> methodMap = new HashMap<String, Method>();
     private static final String ERROR_MSG =
             "Could not parse arguments %1$s at flag %2$s.\n" +
@@ -148,9 +145,17 @@ public abstract class ArgumentParser {
         return false;
     }
 
+    /**
+     * @param flag a command line argument
+     * @return <code>flag</code> without up to two leading dashes. At least one character is always left
+     */
     protected String normalize(final String flag) {
-        final Matcher matcher = FLAG_PATTERN.matcher(flag);
-        return matcher.find() ? matcher.group(1) : flag;
+        int start = 0;
+        while (start < 2 && start < flag.length() - 1 && flag.charAt(start) == '-') {
+            start++;
+        }
+
+        return flag.substring(start);
     }
 
     protected String buildErrorMessage(final String flag) {
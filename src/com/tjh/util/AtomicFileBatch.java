@@ -0,0 +1,154 @@
+package com.tjh.util;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * Collects file writes and commits them together, each one atomically and durably. Every file is written to a temp
+ * file in the same directory, forced to disk and renamed over the target, so a crash leaves either the old contents or
+ * the new ones, never a mix.
+ * <p/>
+ * All of the temp files are written before any of them is forced, giving the disk a chance to coalesce the flushes, and
+ * each directory is forced once per commit rather than once per file. Adding a file that is already pending replaces
+ * the pending contents, so only the latest write of a file is committed.
+ */
+public class AtomicFileBatch {
+    private static final Random random = new SecureRandom();
+
+    private final Map<Path, ByteBuffer> pending = new LinkedHashMap<Path, ByteBuffer>();
+
+    /**
+     * @see #add(File, ByteBuffer)
+     */
+    public AtomicFileBatch add(final File file, final byte[] bytes) { return add(file, ByteBuffer.wrap(bytes)); }
+
+    /**
+     * @param file   the file to write
+     * @param buffer the bytes to write, from its position to its limit. It must not be changed until the batch is
+     *               committed
+     * @return this batch
+     */
+    public synchronized AtomicFileBatch add(final File file, final ByteBuffer buffer) {
+        pending.put(file.toPath().toAbsolutePath().normalize(), buffer);
+        return this;
+    }
+
+    /**
+     * @return the number of files waiting to be committed
+     */
+    public synchronized int size() { return pending.size(); }
+
+    /**
+     * Writes every pending file. The batch is empty afterward, whether or not the commit succeeded. If it fails, the
+     * temp files are removed, and the targets renamed before the failure keep their new contents.
+     *
+     * @throws IOException if a file can't be written, or the file system can't rename atomically
+     */
+    public synchronized void commit() throws IOException {
+        final List<Path> targets = new ArrayList<Path>(pending.keySet());
+        final List<Path> temps = new ArrayList<Path>(targets.size());
+        try {
+            for (final Map.Entry<Path, ByteBuffer> entry : pending.entrySet()) {
+                final Path target = entry.getKey();
+                final Path temp = createTemp(target);
+                temps.add(temp);
+                write(temp, entry.getValue());
+            }
+
+            for (final Path temp : temps) {
+                try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+                    channel.force(true);
+                }
+            }
+
+            final Set<Path> directories = new LinkedHashSet<Path>();
+            for (int i = 0; i < targets.size(); i++) {
+                java.nio.file.Files.move(temps.get(i), targets.get(i), StandardCopyOption.ATOMIC_MOVE,
+                        StandardCopyOption.REPLACE_EXISTING);
+                directories.add(targets.get(i).getParent());
+            }
+
+            for (final Path directory : directories) {
+                forceDirectory(directory);
+            }
+        } finally {
+            pending.clear();
+            for (final Path temp : temps) {
+                java.nio.file.Files.deleteIfExists(temp);
+            }
+        }
+    }
+
+    /**
+     * Creates an empty temp file next to <code>target</code>, with the permissions of <code>target</code> if it exists,
+     * or the permissions any new file would get if it doesn't. Files.createTempFile would make it readable by its owner
+     * alone, and the rename would carry that over to the target.
+     */
+    private static Path createTemp(final Path target) throws IOException {
+        Path result = null;
+        while (result == null) {
+            try {
+                result = java.nio.file.Files.createFile(target.resolveSibling(
+                        "." + target.getFileName() + "." + Long.toHexString(random.nextLong() >>> 1) + ".tmp"));
+            } catch (FileAlreadyExistsException e) {
+                //try another name
+            }
+        }
+
+        try {
+            if (java.nio.file.Files.exists(target)) {
+                java.nio.file.Files.setPosixFilePermissions(result,
+                        java.nio.file.Files.getPosixFilePermissions(target));
+            }
+        } catch (UnsupportedOperationException e) {
+            //not a POSIX file system
+        } catch (IOException e) {
+            java.nio.file.Files.delete(result);
+            throw e;
+        }
+
+        return result;
+    }
+
+    private static void write(final Path path, final ByteBuffer buffer) throws IOException {
+        final ByteBuffer bytes = buffer.duplicate();
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE)) {
+            while (bytes.hasRemaining()) {
+                channel.write(bytes);
+            }
+        }
+    }
+
+    /**
+     * Makes renames in <code>directory</code> durable. Not every platform can open a directory, in which case the
+     * rename is left to the file system.
+     */
+    private static void forceDirectory(final Path directory) throws IOException {
+        final FileChannel channel;
+        try {
+            channel = FileChannel.open(directory, StandardOpenOption.READ);
+        } catch (IOException e) {
+            return;
+        }
+
+        try {
+            channel.force(true);
+        } finally {
+            channel.close();
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package com.tjh.util;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Supplier;
+
+/**
+ * Loads and instantiates classes by name from a single ClassLoader, remembering the result of every lookup. Names
+ * that fail to resolve are remembered too, so repeated misses don't go back to the ClassLoader.
+ * <p/>
+ * A ClassFactory holds on to the classes it has loaded, so keep one for as long as its ClassLoader is in use, rather
+ * than in a static field.
+ *
+ * @see Classes#constructorFor(Class)
+ */
+public class ClassFactory {
+    private final ClassLoader classLoader;
+    private final ConcurrentMap<String, Object> classes = new ConcurrentHashMap<String, Object>();
+
+    public ClassFactory(final ClassLoader classLoader) { this.classLoader = classLoader; }
+
+    /**
+     * @return a factory for the current thread's context ClassLoader
+     */
+    public static ClassFactory forContextClassLoader() {
+        return new ClassFactory(Thread.currentThread().getContextClassLoader());
+    }
+
+    /**
+     * @param className the fully qualified class name
+     * @return the class object
+     * @throws RuntimeException wrapping a ClassNotFoundException if <code>className</code> can't be found
+     */
+    public Class<?> loadClass(final String className) {
+        Object result = classes.get(className);
+        if (result == null) {
+            try {
+                result = classLoader.loadClass(className);
+            } catch (ClassNotFoundException e) {
+                result = e;
+            }
+            classes.putIfAbsent(className, result);
+        }
+
+        if (result instanceof ClassNotFoundException) {
+            throw new RuntimeException((ClassNotFoundException) result);
+        }
+        return (Class<?>) result;
+    }
+
+    /**
+     * @param className the fully qualified class name
+     * @return true if <code>className</code> can be loaded
+     */
+    public boolean canLoad(final String className) {
+        boolean result = true;
+        try {
+            loadClass(className);
+        } catch (RuntimeException e) {
+            result = false;
+        }
+
+        return result;
+    }
+
+    /**
+     * @param className the fully qualified name of a class with a public no-arg constructor
+     * @param <T>       the type of object supplied
+     * @return a reusable Supplier of new instances of <code>className</code>
+     * @see Classes#constructorFor(Class)
+     */
+    @SuppressWarnings({"unchecked"})
+    public <T> Supplier<T> supplier(final String className) {
+        return (Supplier<T>) Classes.constructorFor(loadClass(className));
+    }
+
+    /**
+     * @param className the fully qualified name of a class with a public no-arg constructor
+     * @param <T>       the type of object returned
+     * @return a new instance of <code>className</code>
+     */
+    public <T> T instantiate(final String className) { return this.<T>supplier(className).get(); }
+
+    public ClassLoader getClassLoader() { return classLoader; }
+}
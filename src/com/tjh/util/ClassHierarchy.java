@@ -0,0 +1,96 @@
+package com.tjh.util;
+
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The memoized, immutable hierarchy of a single class, as walked by {@link Classes}. Hierarchies are held in a
+ * ClassValue, so they are computed once per class and don't keep the class from being unloaded.
+ * <p/>
+ * Every class with a hierarchy gets a dense <code>index</code>, and <code>assignableBits</code> has the index of each
+ * type in <code>assignableTo</code> set, so common supertypes can be found with bitwise ANDs.
+ */
+final class ClassHierarchy {
+    private static final ClassValue<ClassHierarchy> hierarchies = new ClassValue<ClassHierarchy>() {
+        @Override
+        protected ClassHierarchy computeValue(final Class<?> type) { return new ClassHierarchy(type); }
+    };
+    private static final AtomicInteger nextIndex = new AtomicInteger();
+
+    final int index = nextIndex.getAndIncrement();
+
+    final List<Class> superclasses;
+    final List<Class> interfaceWalk;
+    final Set<Class> interfaces;
+    final Set<Class> assignableTo;
+    final BitSet assignableBits = new BitSet();
+    final ConcurrentMap<Class<? extends Annotation>, Collection<Method>> annotatedMethods =
+            new ConcurrentHashMap<Class<? extends Annotation>, Collection<Method>>();
+    private final Class<?> type;
+    private volatile Method[] methods;
+
+    private ClassHierarchy(final Class<?> aClass) {
+        type = aClass;
+        final List<Class> classes = new ArrayList<Class>();
+        Class superclass = aClass;
+        do {
+            classes.add(superclass);
+            superclass = superclass.getSuperclass();
+        } while (superclass != null);
+        superclasses = Collections.unmodifiableList(classes);
+
+        //breadth first, repeating interfaces reachable along more than one path, as walkInterfaceHierarchy always has
+        final List<Class> walk = new ArrayList<Class>();
+        final Queue<Class> queue = new LinkedList<Class>();
+        if (aClass.isInterface()) {
+            queue.add(aClass);
+        }
+        for (final Class aSuperclass : superclasses) {
+            queue.addAll(Arrays.asList(aSuperclass.getInterfaces()));
+        }
+        while (queue.size() > 0) {
+            final Class anInterface = queue.remove();
+            walk.add(anInterface);
+            queue.addAll(Arrays.asList(anInterface.getInterfaces()));
+        }
+        interfaceWalk = Collections.unmodifiableList(walk);
+        interfaces = Collections.unmodifiableSet(new LinkedHashSet<Class>(walk));
+
+        final Set<Class> all = new LinkedHashSet<Class>(superclasses);
+        all.addAll(interfaces);
+        assignableTo = Collections.unmodifiableSet(all);
+
+        for (final Class type : assignableTo) {
+            //looking ourselves up would recurse back into the ClassValue
+            assignableBits.set(type == aClass ? index : of(type).index);
+        }
+    }
+
+    /**
+     * @return the public methods of the class. Shared, so callers must not modify it
+     */
+    Method[] methods() {
+        Method[] result = methods;
+        if (result == null) {
+            //racing threads may each call getMethods, but they compute the same thing
+            result = methods = type.getMethods();
+        }
+
+        return result;
+    }
+
+    static ClassHierarchy of(final Class<?> aClass) { return hierarchies.get(aClass); }
+}
@@ -1,36 +1,36 @@
 package com.tjh.util;
 
 import java.lang.annotation.Annotation;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Constructor;
 import java.lang.reflect.Method;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.BitSet;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.LinkedHashSet;
-import java.util.LinkedList;
-import java.util.Queue;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.function.Supplier;
 
 public class Classes {
 
     /**
      * Returns all classes and interfaces that <code>aClass</code> and all of it's superclasses implements or inherits
+     * <p/>
+     * The hierarchy of each class is computed once and cached, so the returned set is shared and unmodifiable
      *
      * @param aClass The class to inspect
      * @return A set of classes
      */
-    public static Set<Class> assignableTo(final Class aClass) {
-        final Set<Class> classes = new HashSet<Class>();
-        final Block<Class, Set<Class>> block = new Block<Class, Set<Class>>() {
-            public Set<Class> invoke(final Class aClass) {
-                classes.add(aClass);
-                return classes;
-            }
-        };
-        walkClassHierarchy(aClass, block);
-        walkInterfaceHierarchy(aClass, block);
-        return classes;
-    }
+    public static Set<Class> assignableTo(final Class aClass) { return ClassHierarchy.of(aClass).assignableTo; }
 
     /**
      * Returns a set of the most specific classes (including interfaces) that all of the members of <code>objects</code>
@@ -50,14 +50,49 @@ public class Classes {
                 result.add(Object.class);
             }
         } else {
-            final Iterator<?> iter = objects.iterator();
-            final Set<Class> commonClasses = new HashSet<Class>();
-            commonClasses.addAll(Classes.assignableTo(iter.next().getClass()));
-            while (iter.hasNext()) {
-                commonClasses.retainAll(Classes.assignableTo(iter.next().getClass()));
+            final Set<Class> classes = new LinkedHashSet<Class>();
+            for (final Object object : objects) {
+                classes.add(object.getClass());
+            }
+
+            result.addAll(commonSupertypes(classes));
+        }
+
+        return result;
+    }
+
+    /**
+     * Returns a set of the most specific classes (including interfaces) that all of <code>classes</code> are
+     * assignable to.
+     * <p/>
+     * Each class's supertypes are cached as a bit set, so the cost is one bitwise AND per class.
+     *
+     * @param classes the classes to inspect
+     * @return A set of the most specific supertypes common to all members of <code>classes</code>, or
+     *         <code>Object</code> if <code>classes</code> is empty
+     * @see #commonBaseClasses(java.util.Collection)
+     */
+    public static Set<Class> commonSupertypes(final Collection<? extends Class> classes) {
+        final Set<Class> result;
+        if (classes.isEmpty()) {
+            result = new HashSet<Class>();
+            result.add(Object.class);
+        } else {
+            final Iterator<? extends Class> iter = classes.iterator();
+            final ClassHierarchy first = ClassHierarchy.of(iter.next());
+            final BitSet common = (BitSet) first.assignableBits.clone();
+            while (iter.hasNext() && !common.isEmpty()) {
+                common.and(ClassHierarchy.of(iter.next()).assignableBits);
             }
 
-            result.addAll(specify(commonClasses));
+            //every common supertype is also a supertype of the first class
+            final Set<Class> commonClasses = new HashSet<Class>();
+            for (final Class aClass : first.assignableTo) {
+                if (common.get(ClassHierarchy.of(aClass).index)) {
+                    commonClasses.add(aClass);
+                }
+            }
+            result = specify(commonClasses);
         }
 
         return result;
@@ -87,10 +122,11 @@ public class Classes {
     public static Set<Class> specify(final Collection<Class> classes) {
         final Set<Class> result = new HashSet<Class>(classes);
         for (final Class<?> aClass : classes) {
-            final Set<Class> parents = assignableTo(aClass);
-            parents.remove(aClass);
-            result.removeAll(parents);
-            result.removeAll(Arrays.asList(aClass.getInterfaces()));
+            for (final Class parent : assignableTo(aClass)) {
+                if (parent != aClass) {
+                    result.remove(parent);
+                }
+            }
         }
 
         if (result.size() > 1) {
@@ -120,12 +156,10 @@ public class Classes {
      * @return The return valie of the last call to {@link Block#invoke(Object)}
      */
     public static <T> T walkClassHierarchy(final Class<?> aClass, final Block<Class, T> block) {
-        Class superclass = aClass;
-        T result;
-        do {
+        T result = null;
+        for (final Class superclass : ClassHierarchy.of(aClass).superclasses) {
             result = block.invoke(superclass);
-            superclass = superclass.getSuperclass();
-        } while (superclass != null);
+        }
 
         return result;
     }
@@ -149,12 +183,7 @@ public class Classes {
     public static Collection<Class> allInterfacesFor(final Iterable<Class> classes) {
         final Set<Class> result = new LinkedHashSet<Class>();
         for (final Class aClass : classes) {
-            walkInterfaceHierarchy(aClass, new Block<Class, Set<Class>>() {
-                public Set<Class> invoke(final Class aClass) {
-                    result.add(aClass);
-                    return result;
-                }
-            });
+            result.addAll(ClassHierarchy.of(aClass).interfaces);
         }
 
         return result;
@@ -187,21 +216,9 @@ public class Classes {
      * @return The last value returned by the block
      */
     public static <T> T walkInterfaceHierarchy(final Class aClass, final Block<Class, T> block) {
-        final Queue<Class> interfaces = new LinkedList<Class>();
         T result = null;
-        if(aClass.isInterface()){
-            interfaces.add(aClass);
-        }
-        walkClassHierarchy(aClass, new Block<Class, Queue<Class>>(){
-            public Queue<Class> invoke(final Class aClass) {
-                interfaces.addAll(Arrays.asList(aClass.getInterfaces()));
-                return interfaces;
-            }
-        });
-        while(interfaces.size() > 0) {
-            final Class anInterface = interfaces.remove();
+        for (final Class anInterface : ClassHierarchy.of(aClass).interfaceWalk) {
             result = block.invoke(anInterface);
-            interfaces.addAll(Arrays.asList(anInterface.getInterfaces()));
         }
 
         return result;
@@ -226,21 +243,107 @@ public class Classes {
      * @param className the class to instantiate
      * @return an instance of <code>className</code>
      */
-    public static Object instantiate(String className) {
-        try {
-            return loadClass(className).newInstance();
-        } catch (InstantiationException e) {
-            throw new RuntimeException(e);
-        } catch (IllegalAccessException e) {
-            throw new RuntimeException(e);
+    public static Object instantiate(String className) { return constructorFor(loadClass(className)).get(); }
+
+    /**
+     * Returns a Supplier that calls the public no-arg constructor of <code>aClass</code>. The constructor is bound to a
+     * MethodHandle once per class, so each call to <code>get</code> skips the access checks of reflection. Checked
+     * exceptions thrown by the constructor are converted to runtime exceptions, as are missing or inaccessible
+     * constructors.
+     *
+     * @param aClass the class to instantiate
+     * @param <T>    the type of object supplied
+     * @return a shared Supplier of new instances of <code>aClass</code>
+     * @see ClassFactory
+     */
+    @SuppressWarnings({"unchecked"})
+    public static <T> Supplier<T> constructorFor(final Class<T> aClass) {
+        return (Supplier<T>) constructors.get(aClass);
+    }
+
+    private static final ClassValue<Supplier<?>> constructors = new ClassValue<Supplier<?>>() {
+        @Override
+        protected Supplier<?> computeValue(final Class<?> type) {
+            try {
+                final Constructor<?> constructor = type.getConstructor();
+                return new ConstructorSupplier<Object>(MethodHandles.lookup().unreflectConstructor(constructor)
+                        .asType(MethodType.methodType(Object.class)));
+            }
+            catch (NoSuchMethodException e) { throw new RuntimeException(e); }
+            catch (IllegalAccessException e) { throw new RuntimeException(e); }
+        }
+    };
+
+    private static final class ConstructorSupplier<T> implements Supplier<T> {
+        private final MethodHandle constructor;
+
+        ConstructorSupplier(final MethodHandle constructor) { this.constructor = constructor; }
+
+        @SuppressWarnings({"unchecked"})
+        public T get() {
+            try {
+                return (T) (Object) constructor.invokeExact();
+            }
+            catch (RuntimeException e) { throw e; }
+            catch (Error e) { throw e; }
+            catch (Throwable t) { throw new RuntimeException(t); }
         }
     }
 
+    /**
+     * Returns the public methods of <code>aClass</code> that are annotated with <code>annotationClass</code>.
+     * <p/>
+     * Results are cached per class and annotation type, so the returned collection is shared and unmodifiable
+     *
+     * @param aClass          The class to inspect
+     * @param annotationClass The annotation to look for
+     * @return the annotated methods
+     */
     public static Collection<Method> annotatedMethods(Class<?> aClass,
                                                       final Class<? extends Annotation> annotationClass) {
-        return Lists.select(aClass.getMethods(), new Block<Method, Boolean>() {
-            @Override
-            public Boolean invoke(Method method) { return method.getAnnotation(annotationClass) != null; }
-        });
+        return annotatedMethods(aClass, Collections.<Class<? extends Annotation>>singleton(annotationClass))
+                .get(annotationClass);
+    }
+
+    /**
+     * Like {@link #annotatedMethods(Class, Class)}, for several annotation types at once. Annotation types that
+     * aren't cached yet are all found in a single pass over the methods of <code>aClass</code>.
+     *
+     * @param aClass            The class to inspect
+     * @param annotationClasses The annotations to look for
+     * @return the annotated methods for each member of <code>annotationClasses</code>
+     */
+    public static Map<Class<? extends Annotation>, Collection<Method>> annotatedMethods(final Class<?> aClass,
+            final Collection<Class<? extends Annotation>> annotationClasses) {
+        final ClassHierarchy hierarchy = ClassHierarchy.of(aClass);
+        final Map<Class<? extends Annotation>, Collection<Method>> result =
+                new HashMap<Class<? extends Annotation>, Collection<Method>>();
+        final Map<Class<? extends Annotation>, List<Method>> uncached =
+                new HashMap<Class<? extends Annotation>, List<Method>>();
+        for (final Class<? extends Annotation> annotationClass : annotationClasses) {
+            final Collection<Method> methods = hierarchy.annotatedMethods.get(annotationClass);
+            if (methods == null) {
+                uncached.put(annotationClass, new ArrayList<Method>());
+            } else {
+                result.put(annotationClass, methods);
+            }
+        }
+
+        if (!uncached.isEmpty()) {
+            for (final Method method : hierarchy.methods()) {
+                for (final Map.Entry<Class<? extends Annotation>, List<Method>> entry : uncached.entrySet()) {
+                    if (method.isAnnotationPresent(entry.getKey())) {
+                        entry.getValue().add(method);
+                    }
+                }
+            }
+            for (final Map.Entry<Class<? extends Annotation>, List<Method>> entry : uncached.entrySet()) {
+                final Collection<Method> methods = Collections.unmodifiableList(entry.getValue());
+                final Collection<Method> existing = hierarchy.annotatedMethods.putIfAbsent(entry.getKey(), methods);
+                result.put(entry.getKey(), existing == null ? methods : existing);
+            }
+        }
+
+        return result;
     }
-}
\ No newline at end of file
+}
@@ -1,5 +1,6 @@
 package com.tjh.util;
 
+import java.lang.invoke.MethodHandle;
 import java.lang.reflect.InvocationHandler;
 import java.lang.reflect.Method;
 import java.lang.reflect.Proxy;
@@ -8,42 +9,100 @@ import java.util.HashMap;
 import java.util.Map;
 
 public class CompositeFactory {
+    /**
+     * How a composite calls through to its delegates
+     */
+    public enum Dispatch {
+        /**
+         * Each call goes through <code>Method.invoke</code>. Exceptions thrown by a delegate reach the caller wrapped
+         * in an UndeclaredThrowableException.
+         */
+        REFLECTION,
+        /**
+         * Each method is bound to its delegate as a MethodHandle when the composite is created, avoiding reflective
+         * access checks on every call. Exceptions thrown by a delegate reach the caller unwrapped.
+         */
+        METHOD_HANDLES,
+        /**
+         * The composite is an instance of a generated class whose methods call their delegates directly, so calls
+         * can inline like ordinary virtual calls. The class is generated once per interface and list of delegate
+         * classes. Exceptions thrown by a delegate reach the caller unwrapped.
+         */
+        GENERATED
+    }
+
     public static <T> T createComposite(final Class<T> declaredInterface, final Object... objects) {
-        //noinspection unchecked
+        return createComposite(declaredInterface, Dispatch.REFLECTION, objects);
+    }
+
+    @SuppressWarnings({"unchecked"})
+    public static <T> T createComposite(final Class<T> declaredInterface, final Dispatch dispatch,
+                                        final Object... objects) {
+        if (dispatch == Dispatch.GENERATED) {
+            return (T) new CompositeGenerator(declaredInterface, objects).create();
+        }
+
+        final InvocationHandler handler = dispatch == Dispatch.METHOD_HANDLES
+                ? new MethodHandleCompositeInvocationHandler(declaredInterface, objects)
+                : new CompositeInvocationHandler(declaredInterface, objects);
         return (T) Proxy.newProxyInstance(objects[0].getClass().getClassLoader(), new Class<?>[]{declaredInterface},
-                new CompositeInvocationHandler(objects));
+                handler);
     }
 }
 
 
 class CompositeInvocationHandler implements InvocationHandler {
     private final Object[] delegates;
-    final Map<Method, Object> cache = new HashMap<Method, Object>();
+    final CompositeRoutes routes;
 
-    public CompositeInvocationHandler(final Object... delegates) { this.delegates = delegates; }
+    public CompositeInvocationHandler(final Class<?> declaredInterface, final Object... delegates) {
+        this.delegates = delegates;
+        routes = CompositeRoutes.forClasses(declaredInterface, delegates);
+    }
 
     public Object invoke(final Object proxy, final Method method, final Object[] args) throws Throwable {
         return method.invoke(objectFor(method), args);
     }
 
     Object objectFor(final Method method) throws NoSuchMethodException {
-        if (!cache.keySet().contains(method)) {
-            cache.put(method, findObjectFor(method));
+        final int index = routes.indexFor(method);
+        if (index == CompositeRoutes.NOT_FOUND) {
+            throw new NoSuchMethodException(
+                    "The method '" + method + "' was not found on any of the delegates:" + Arrays.asList(delegates));
         }
 
-        return cache.get(method);
+        return delegates[index];
     }
+}
+
+/**
+ * Calls each method through a MethodHandle bound to its delegate when the handler is built
+ */
+class MethodHandleCompositeInvocationHandler implements InvocationHandler {
+    private final Object[] delegates;
+    private final Map<Method, MethodHandle> handles = new HashMap<Method, MethodHandle>();
 
-    private Object findObjectFor(final Method method) throws NoSuchMethodException {
-        final Object result = Lists.find(delegates, new Block<Object, Boolean>(){
-            public Boolean invoke(final Object delegate) { return Classes.implementsMethod(delegate.getClass(), method); }
-        });
+    public MethodHandleCompositeInvocationHandler(final Class<?> declaredInterface, final Object... delegates) {
+        this.delegates = delegates;
+        final CompositeRoutes routes = CompositeRoutes.forClasses(declaredInterface, delegates);
+        try {
+            for (final Map.Entry<Method, Integer> entry : routes.indexes().entrySet()) {
+                if (entry.getValue() != CompositeRoutes.NOT_FOUND) {
+                    handles.put(entry.getKey(), Methods.bind(entry.getKey(), delegates[entry.getValue()]));
+                }
+            }
+        }
+        catch (NoSuchMethodException e) { throw new RuntimeException(e); }
+        catch (IllegalAccessException e) { throw new RuntimeException(e); }
+    }
 
-        if (result == null) {
+    public Object invoke(final Object proxy, final Method method, final Object[] args) throws Throwable {
+        final MethodHandle handle = handles.get(method);
+        if (handle == null) {
             throw new NoSuchMethodException(
                     "The method '" + method + "' was not found on any of the delegates:" + Arrays.asList(delegates));
         }
-        
-        return result;
+
+        return (Object) handle.invokeExact(args);
     }
-}
\ No newline at end of file
+}
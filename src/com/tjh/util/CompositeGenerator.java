@@ -0,0 +1,163 @@
+package com.tjh.util;
+
+import net.sf.cglib.asm.ClassVisitor;
+import net.sf.cglib.asm.Type;
+import net.sf.cglib.core.AbstractClassGenerator;
+import net.sf.cglib.core.ClassEmitter;
+import net.sf.cglib.core.CodeEmitter;
+import net.sf.cglib.core.Constants;
+import net.sf.cglib.core.EmitUtils;
+import net.sf.cglib.core.ReflectUtils;
+import net.sf.cglib.core.Signature;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.UndeclaredThrowableException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Generates a class implementing a composite interface whose methods call the routed delegate directly, with no
+ * reflection or argument arrays in between. Generated classes are cached per interface and list of delegate classes.
+ * <p/>
+ * Methods no delegate implements throw an UndeclaredThrowableException wrapping a NoSuchMethodException, just as the
+ * proxy based composites do.
+ */
+class CompositeGenerator extends AbstractClassGenerator {
+    private static final Source SOURCE = new Source(CompositeGenerator.class.getName());
+    private static final Type UNDECLARED_THROWABLE = Type.getType(UndeclaredThrowableException.class);
+    private static final Type NO_SUCH_METHOD = Type.getType(NoSuchMethodException.class);
+    private static final Signature CONSTRUCTOR =
+            new Signature(Constants.CONSTRUCTOR_NAME, Type.VOID_TYPE, new Type[]{Constants.TYPE_OBJECT_ARRAY});
+
+    private final Class<?> declaredInterface;
+    private final Object[] delegates;
+    private final List<Class<?>> delegateClasses;
+
+    CompositeGenerator(final Class<?> declaredInterface, final Object... delegates) {
+        super(SOURCE);
+        this.declaredInterface = declaredInterface;
+        this.delegates = delegates;
+        delegateClasses = new ArrayList<Class<?>>(delegates.length);
+        for (final Object delegate : delegates) {
+            delegateClasses.add(delegate.getClass());
+        }
+        setNamePrefix(declaredInterface.getName());
+        setClassLoader(declaredInterface.getClassLoader());
+    }
+
+    Object create() {
+        final List<Class<?>> key = new ArrayList<Class<?>>(delegateClasses.size() + 1);
+        key.add(declaredInterface);
+        key.addAll(delegateClasses);
+
+        final Class<?> type = (Class<?>) super.create(key);
+        return ReflectUtils.newInstance(type, new Class[]{Object[].class}, new Object[]{delegates});
+    }
+
+    public void generateClass(final ClassVisitor v) throws Exception {
+        final ClassEmitter ce = new ClassEmitter(v);
+        ce.begin_class(Constants.V1_2, Constants.ACC_PUBLIC, getClassName(), null,
+                new Type[]{Type.getType(declaredInterface)}, Constants.SOURCE_FILE);
+
+        for (int i = 0; i < delegateClasses.size(); i++) {
+            ce.declare_field(Constants.ACC_PRIVATE | Constants.ACC_FINAL, fieldName(i), Constants.TYPE_OBJECT, null);
+        }
+        emitConstructor(ce);
+
+        final CompositeRoutes routes = CompositeRoutes.forClasses(declaredInterface, delegates);
+        final Set<String> emitted = new HashSet<String>();
+        for (final Method method : compositeMethods()) {
+            if (emitted.add(method.getName() + Type.getMethodDescriptor(method))) {
+                emitMethod(ce, method, routes.indexFor(method));
+            }
+        }
+
+        ce.end_class();
+    }
+
+    private List<Method> compositeMethods() throws NoSuchMethodException {
+        final List<Method> result = new ArrayList<Method>();
+        for (final Method method : declaredInterface.getMethods()) {
+            if (!Modifier.isStatic(method.getModifiers())) {
+                result.add(method);
+            }
+        }
+        //java.lang.reflect.Proxy forwards these too, so the generated class does the same
+        result.add(Object.class.getMethod("equals", Object.class));
+        result.add(Object.class.getMethod("hashCode"));
+        result.add(Object.class.getMethod("toString"));
+
+        return result;
+    }
+
+    private void emitConstructor(final ClassEmitter ce) {
+        final CodeEmitter e = ce.begin_method(Constants.ACC_PUBLIC, CONSTRUCTOR, null);
+        e.load_this();
+        e.super_invoke_constructor();
+        for (int i = 0; i < delegateClasses.size(); i++) {
+            e.load_this();
+            e.load_arg(0);
+            e.aaload(i);
+            e.putfield(fieldName(i));
+        }
+        e.return_value();
+        e.end_method();
+    }
+
+    private void emitMethod(final ClassEmitter ce, final Method method, final int index) throws NoSuchMethodException {
+        final CodeEmitter e = EmitUtils.begin_method(ce, ReflectUtils.getMethodInfo(method), Constants.ACC_PUBLIC);
+        if (index == CompositeRoutes.NOT_FOUND) {
+            e.new_instance(UNDECLARED_THROWABLE);
+            e.dup();
+            e.new_instance(NO_SUCH_METHOD);
+            e.dup();
+            e.push("The method '" + method + "' was not found on any of the delegate classes:" + delegateClasses);
+            e.invoke_constructor(NO_SUCH_METHOD,
+                    new Signature(Constants.CONSTRUCTOR_NAME, Type.VOID_TYPE, new Type[]{Constants.TYPE_STRING}));
+            e.invoke_constructor(UNDECLARED_THROWABLE,
+                    new Signature(Constants.CONSTRUCTOR_NAME, Type.VOID_TYPE, new Type[]{Constants.TYPE_THROWABLE}));
+            e.athrow();
+        } else {
+            final Method target = targetMethod(method, delegateClasses.get(index));
+            e.load_this();
+            e.getfield(fieldName(index));
+            e.checkcast(Type.getType(target.getDeclaringClass()));
+            e.load_args();
+            e.invoke(ReflectUtils.getMethodInfo(target));
+            e.return_value();
+        }
+        e.end_method();
+    }
+
+    /**
+     * Calls through the interface that declares <code>method</code> when the delegate implements it, otherwise
+     * through the delegate's own public method with the same signature.
+     */
+    private static Method targetMethod(final Method method, final Class<?> delegateClass)
+            throws NoSuchMethodException {
+        Method result = method;
+        if (!method.getDeclaringClass().isAssignableFrom(delegateClass)) {
+            result = delegateClass.getMethod(method.getName(), method.getParameterTypes());
+            if (!Modifier.isPublic(result.getDeclaringClass().getModifiers())) {
+                throw new IllegalArgumentException(
+                        "Generated composites can only call '" + result + "' through a public class");
+            }
+        }
+
+        return result;
+    }
+
+    private static String fieldName(final int index) { return "delegate" + index; }
+
+    @Override
+    protected ClassLoader getDefaultClassLoader() { return declaredInterface.getClassLoader(); }
+
+    @Override
+    protected Object firstInstance(final Class type) { return type; }
+
+    @Override
+    protected Object nextInstance(final Object instance) { return instance; }
+}
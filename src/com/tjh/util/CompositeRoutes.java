@@ -0,0 +1,86 @@
+package com.tjh.util;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Maps each method of a composite interface to the index of the first delegate class that implements it. Routes only
+ * depend on the classes involved, so one table is built per interface and list of delegate classes and shared by every
+ * composite made from them.
+ */
+class CompositeRoutes {
+    static final int NOT_FOUND = -1;
+
+    private static final ClassValue<ConcurrentMap<List<Class<?>>, CompositeRoutes>> routesByInterface =
+            new ClassValue<ConcurrentMap<List<Class<?>>, CompositeRoutes>>() {
+                @Override
+                protected ConcurrentMap<List<Class<?>>, CompositeRoutes> computeValue(final Class<?> type) {
+                    return new ConcurrentHashMap<List<Class<?>>, CompositeRoutes>();
+                }
+            };
+
+    private final List<Class<?>> delegateClasses;
+    private final ConcurrentMap<Method, Integer> indexes = new ConcurrentHashMap<Method, Integer>();
+
+    CompositeRoutes(final Class<?> declaredInterface, final List<Class<?>> delegateClasses) {
+        this.delegateClasses = delegateClasses;
+        for (final Method method : declaredInterface.getMethods()) {
+            indexes.put(method, findIndexFor(method));
+        }
+        //java.lang.reflect.Proxy also dispatches these to the handler
+        for (final Method method : Object.class.getMethods()) {
+            indexes.put(method, findIndexFor(method));
+        }
+    }
+
+    static CompositeRoutes forClasses(final Class<?> declaredInterface, final Object... delegates) {
+        final List<Class<?>> delegateClasses = new ArrayList<Class<?>>(delegates.length);
+        for (final Object delegate : delegates) {
+            delegateClasses.add(delegate.getClass());
+        }
+
+        final ConcurrentMap<List<Class<?>>, CompositeRoutes> routes = routesByInterface.get(declaredInterface);
+        CompositeRoutes result = routes.get(delegateClasses);
+        if (result == null) {
+            final CompositeRoutes newRoutes = new CompositeRoutes(declaredInterface, delegateClasses);
+            result = routes.putIfAbsent(delegateClasses, newRoutes);
+            if (result == null) {
+                result = newRoutes;
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * @return the routes resolved so far, keyed by method
+     */
+    Map<Method, Integer> indexes() { return Collections.unmodifiableMap(indexes); }
+
+    int indexFor(final Method method) {
+        Integer result = indexes.get(method);
+        if (result == null) {
+            //not declared by the interface, so route it the first time it's seen
+            result = findIndexFor(method);
+            indexes.putIfAbsent(method, result);
+        }
+
+        return result;
+    }
+
+    private int findIndexFor(final Method method) {
+        int result = NOT_FOUND;
+        for (int i = 0; i < delegateClasses.size() && result == NOT_FOUND; i++) {
+            if (Classes.implementsMethod(delegateClasses.get(i), method)) {
+                result = i;
+            }
+        }
+
+        return result;
+    }
+}
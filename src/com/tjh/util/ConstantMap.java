@@ -0,0 +1,195 @@
+package com.tjh.util;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * A compact, immutable map backed by a single open-addressed array of keys and values, as built by
+ * {@link Maps#asConstantMap}.
+ * <p/>
+ * Since the keys are known when the map is built, a number of hash multipliers are tried in search of one that puts
+ * every key in its own slot. When one is found, as it usually is for small maps, every lookup is a single probe.
+ * Otherwise collisions fall back to linear probing.
+ */
+final class ConstantMap<K, V> extends AbstractMap<K, V> {
+    private static final Object NULL_KEY = new Object();
+    private static final int DEFAULT_MULTIPLIER = 0x9E3779B9;
+    private static final int ATTEMPTS = 64;
+    private static final int MAX_SEARCHED_SIZE = 1 << 12;
+
+    private final Object[] table;
+    private final int multiplier;
+    private final int shift;
+    private final int mask;
+    private final boolean perfect;
+    private final Map.Entry<K, V>[] entries;
+
+    /**
+     * @param map the keys and values to copy
+     * @return an immutable copy of <code>map</code>. Maps with enum keys are copied into an EnumMap
+     */
+    @SuppressWarnings({"unchecked"})
+    static <K, V> Map<K, V> copyOf(final Map<? extends K, ? extends V> map) {
+        final Map<K, V> result;
+        if (map.isEmpty()) {
+            result = Collections.emptyMap();
+        } else if (hasEnumKeys(map)) {
+            result = Collections.unmodifiableMap(new EnumMap((Map) map));
+        } else {
+            result = new ConstantMap<K, V>(map);
+        }
+
+        return result;
+    }
+
+    private static boolean hasEnumKeys(final Map<?, ?> map) {
+        Class<?> enumClass = null;
+        for (final Object key : map.keySet()) {
+            if (!(key instanceof Enum) || enumClass != null && ((Enum) key).getDeclaringClass() != enumClass) {
+                return false;
+            }
+            enumClass = ((Enum) key).getDeclaringClass();
+        }
+
+        return true;
+    }
+
+    @SuppressWarnings({"unchecked"})
+    private ConstantMap(final Map<? extends K, ? extends V> map) {
+        final int size = map.size();
+        entries = new Map.Entry[size];
+        final Object[] keys = new Object[size];
+        int i = 0;
+        for (final Map.Entry<? extends K, ? extends V> entry : map.entrySet()) {
+            entries[i] = new SimpleImmutableEntry<K, V>(entry.getKey(), entry.getValue());
+            keys[i++] = maskNull(entry.getKey());
+        }
+
+        int bits = Math.max(1, 32 - Integer.numberOfLeadingZeros(size * 2 - 1));
+        int chosen = findPerfectMultiplier(keys, bits);
+        if (chosen == 0) {
+            //a sparser table makes a perfect multiplier much easier to find
+            chosen = findPerfectMultiplier(keys, bits + 1);
+            if (chosen != 0) {
+                bits++;
+            }
+        }
+
+        perfect = chosen != 0;
+        multiplier = perfect ? chosen : DEFAULT_MULTIPLIER;
+        shift = 32 - bits;
+        mask = (1 << bits) - 1;
+        table = new Object[2 << bits];
+        for (final Map.Entry<K, V> entry : entries) {
+            int slot = slot(maskNull(entry.getKey()));
+            while (table[slot << 1] != null) {
+                slot = (slot + 1) & mask;
+            }
+            table[slot << 1] = maskNull(entry.getKey());
+            table[(slot << 1) + 1] = entry.getValue();
+        }
+    }
+
+    /**
+     * @return a multiplier that gives each of <code>keys</code> its own slot in a table of <code>2^bits</code>
+     *         slots, or 0 if none was found
+     */
+    private static int findPerfectMultiplier(final Object[] keys, final int bits) {
+        if (keys.length > MAX_SEARCHED_SIZE) {
+            return 0;
+        }
+
+        final int shift = 32 - bits;
+        final boolean[] used = new boolean[1 << bits];
+        int candidate = DEFAULT_MULTIPLIER;
+        for (int attempt = 0; attempt < ATTEMPTS; attempt++) {
+            boolean collided = false;
+            for (int i = 0; i < keys.length && !collided; i++) {
+                final int slot = (keys[i].hashCode() * candidate) >>> shift;
+                collided = used[slot];
+                used[slot] = true;
+            }
+            if (!collided) {
+                return candidate;
+            }
+
+            Arrays.fill(used, false);
+            //odd multipliers from a simple linear congruential sequence
+            candidate = (candidate * 0x5DEECE6D + 0xB) | 1;
+        }
+
+        return 0;
+    }
+
+    private static Object maskNull(final Object key) { return key == null ? NULL_KEY : key; }
+
+    private int slot(final Object maskedKey) { return (maskedKey.hashCode() * multiplier) >>> shift; }
+
+    /**
+     * @return the index in <code>table</code> of <code>key</code>, or -1 if it isn't present
+     */
+    private int indexOf(final Object key) {
+        final Object maskedKey = maskNull(key);
+        int slot = slot(maskedKey);
+        Object candidate;
+        while ((candidate = table[slot << 1]) != null) {
+            if (candidate == maskedKey || candidate.equals(maskedKey)) {
+                return slot << 1;
+            }
+            slot = (slot + 1) & mask;
+        }
+
+        return -1;
+    }
+
+    /**
+     * @return true if every key has its own slot
+     */
+    boolean isPerfect() { return perfect; }
+
+    @Override
+    @SuppressWarnings({"unchecked"})
+    public V get(final Object key) {
+        final int index = indexOf(key);
+        return index < 0 ? null : (V) table[index + 1];
+    }
+
+    @Override
+    public boolean containsKey(final Object key) { return indexOf(key) >= 0; }
+
+    @Override
+    public int size() { return entries.length; }
+
+    @Override
+    public Set<Map.Entry<K, V>> entrySet() {
+        return new AbstractSet<Map.Entry<K, V>>() {
+            @Override
+            public Iterator<Map.Entry<K, V>> iterator() {
+                return new Iterator<Map.Entry<K, V>>() {
+                    private int next;
+
+                    public boolean hasNext() { return next < entries.length; }
+
+                    public Map.Entry<K, V> next() {
+                        if (next >= entries.length) {
+                            throw new NoSuchElementException();
+                        }
+                        return entries[next++];
+                    }
+
+                    public void remove() { throw new UnsupportedOperationException(); }
+                };
+            }
+
+            @Override
+            public int size() { return entries.length; }
+        };
+    }
+}
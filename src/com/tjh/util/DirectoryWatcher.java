@@ -0,0 +1,322 @@
+package com.tjh.util;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.LinkOption;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.NotDirectoryException;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Reports the files beneath a directory that were added, changed or removed since the last call to {@link #poll()}.
+ * <p/>
+ * A snapshot of the modification time and size of every matching file is kept per directory. When the file system
+ * supports a WatchService, only the directories it reports events for are read again, so the cost of a poll depends on
+ * what changed rather than on the size of the tree. Otherwise, or if the WatchService loses events, the whole tree is
+ * walked and compared with the snapshot. Directories the WatchService can't register, as when the system runs out of
+ * watches, are compared with their snapshots on every poll.
+ * <p/>
+ * Symbolic links to directories are not followed.
+ */
+public class DirectoryWatcher implements Closeable {
+    private final Path baseDir;
+    private final PathMatcher matcher;
+    private final WatchService watchService;
+    private final Map<Path, DirectoryState> directories = new HashMap<Path, DirectoryState>();
+    private final Map<WatchKey, Path> watchedDirectories = new HashMap<WatchKey, Path>();
+    private final Set<Path> unwatchedDirectories = new LinkedHashSet<Path>();
+
+    /**
+     * Watches every file beneath <code>baseDir</code> with a WatchService, if one is available
+     *
+     * @see #DirectoryWatcher(Path, PathMatcher, boolean)
+     */
+    public DirectoryWatcher(final Path baseDir) throws IOException {
+        this(baseDir, new PathMatcher() {
+            public boolean matches(final Path path) { return true; }
+        }, true);
+    }
+
+    /**
+     * Takes the initial snapshot of <code>baseDir</code>. Files already present are not reported by the first poll.
+     *
+     * @param baseDir the directory to watch
+     * @param matcher decides which files are watched
+     * @param watch   true to use a WatchService if the file system has one, false to always compare snapshots
+     * @throws IOException if <code>baseDir</code> can't be read
+     */
+    public DirectoryWatcher(final Path baseDir, final PathMatcher matcher, final boolean watch) throws IOException {
+        if (!java.nio.file.Files.isDirectory(baseDir)) {
+            throw new IllegalArgumentException("baseDir must be a directory: " + baseDir);
+        }
+
+        this.baseDir = baseDir;
+        this.matcher = matcher;
+        watchService = watch ? newWatchService(baseDir) : null;
+        scan(baseDir, new Changes(), true);
+    }
+
+    /**
+     * @return true if polls are driven by a WatchService, false if they compare snapshots of the whole tree
+     */
+    public boolean isWatching() { return watchService != null; }
+
+    /**
+     * @return the changes since the last poll, or since the watcher was created
+     * @throws IOException if a directory can't be read
+     */
+    public synchronized Changes poll() throws IOException {
+        final Changes result = new Changes();
+        if (watchService == null) {
+            scan(baseDir, result, true);
+        } else {
+            boolean overflowed = false;
+            final Set<Path> dirty = new LinkedHashSet<Path>();
+            WatchKey key;
+            while ((key = watchService.poll()) != null) {
+                for (final WatchEvent<?> event : key.pollEvents()) {
+                    overflowed |= event.kind() == StandardWatchEventKinds.OVERFLOW;
+                }
+                final Path dir = watchedDirectories.get(key);
+                if (dir != null) {
+                    dirty.add(dir);
+                }
+                if (!key.reset()) {
+                    watchedDirectories.remove(key);
+                }
+            }
+            dirty.addAll(unwatchedDirectories);
+
+            if (overflowed) {
+                scan(baseDir, result, true);
+            } else {
+                for (final Path dir : dirty) {
+                    //a parent's scan may already have removed it
+                    if (directories.containsKey(dir)) {
+                        scan(dir, result, false);
+                    }
+                }
+            }
+        }
+
+        return result;
+    }
+
+    public synchronized void close() throws IOException {
+        if (watchService != null) {
+            watchService.close();
+        }
+    }
+
+    /**
+     * Reads <code>dir</code> and compares it with the snapshot. New subdirectories are always read; known ones only if
+     * <code>recursive</code>.
+     */
+    private void scan(final Path dir, final Changes changes, final boolean recursive) throws IOException {
+        final DirectoryState previous = directories.get(dir);
+        final WatchKey previousKey = previous == null ? null : previous.key;
+        final DirectoryState current;
+        try {
+            //register before reading, so nothing created in between is missed
+            current = new DirectoryState(needsRegistering(dir, previous) ? register(dir) : previousKey);
+        } catch (NoSuchFileException e) {
+            removeTree(dir, changes);
+            return;
+        }
+
+        try (DirectoryStream<Path> entries = java.nio.file.Files.newDirectoryStream(dir)) {
+            for (final Path entry : entries) {
+                final BasicFileAttributes attributes;
+                try {
+                    attributes = java.nio.file.Files.readAttributes(entry, BasicFileAttributes.class,
+                            LinkOption.NOFOLLOW_LINKS);
+                } catch (NoSuchFileException e) {
+                    //removed since the directory was read
+                    continue;
+                }
+
+                if (attributes.isDirectory()) {
+                    current.subdirectories.add(entry);
+                } else if (matcher.matches(entry)) {
+                    current.files.put(entry, new FileState(attributes));
+                }
+            }
+        } catch (NoSuchFileException e) {
+            if (current.key != previousKey) {
+                cancel(dir, current.key);
+            }
+            removeTree(dir, changes);
+            return;
+        } catch (NotDirectoryException e) {
+            if (current.key != previousKey) {
+                cancel(dir, current.key);
+            }
+            removeTree(dir, changes);
+            return;
+        }
+
+        final Map<Path, FileState> previousFiles =
+                previous == null ? Collections.<Path, FileState>emptyMap() : previous.files;
+        for (final Map.Entry<Path, FileState> entry : current.files.entrySet()) {
+            final FileState state = previousFiles.get(entry.getKey());
+            if (state == null) {
+                changes.added.add(entry.getKey());
+            } else if (!state.equals(entry.getValue())) {
+                changes.changed.add(entry.getKey());
+            }
+        }
+        for (final Path file : previousFiles.keySet()) {
+            if (!current.files.containsKey(file)) {
+                changes.removed.add(file);
+            }
+        }
+        directories.put(dir, current);
+
+        for (final Path subdirectory : current.subdirectories) {
+            if (recursive || !directories.containsKey(subdirectory)) {
+                scan(subdirectory, changes, true);
+            }
+        }
+        if (previous != null) {
+            for (final Path subdirectory : previous.subdirectories) {
+                if (!current.subdirectories.contains(subdirectory)) {
+                    removeTree(subdirectory, changes);
+                }
+            }
+        }
+    }
+
+    private void removeTree(final Path dir, final Changes changes) {
+        final DirectoryState state = directories.remove(dir);
+        if (state != null) {
+            changes.removed.addAll(state.files.keySet());
+            cancel(dir, state.key);
+            for (final Path subdirectory : state.subdirectories) {
+                removeTree(subdirectory, changes);
+            }
+        }
+    }
+
+    /**
+     * @return true if <code>dir</code> is new, or its key went dead because the directory was removed, replaced or
+     *         renamed since it was registered
+     */
+    private boolean needsRegistering(final Path dir, final DirectoryState previous) {
+        if (previous == null) {
+            return true;
+        }
+        if (previous.key == null) {
+            return false;
+        }
+
+        final boolean dead = !previous.key.isValid() || !dir.equals(watchedDirectories.get(previous.key));
+        if (dead && dir.equals(watchedDirectories.get(previous.key))) {
+            watchedDirectories.remove(previous.key);
+        }
+        return dead;
+    }
+
+    private WatchKey register(final Path dir) throws IOException {
+        WatchKey result = null;
+        if (watchService != null) {
+            try {
+                result = dir.register(watchService, StandardWatchEventKinds.ENTRY_CREATE,
+                        StandardWatchEventKinds.ENTRY_DELETE, StandardWatchEventKinds.ENTRY_MODIFY);
+                watchedDirectories.put(result, dir);
+            } catch (NoSuchFileException e) {
+                throw e;
+            } catch (IOException e) {
+                //most likely out of watches, so fall back to comparing this directory on every poll
+                unwatchedDirectories.add(dir);
+            }
+        }
+
+        return result;
+    }
+
+    private void cancel(final Path dir, final WatchKey key) {
+        unwatchedDirectories.remove(dir);
+        //a directory renamed within the tree keeps its key, which may now belong to the new name
+        if (key != null && dir.equals(watchedDirectories.get(key))) {
+            key.cancel();
+            watchedDirectories.remove(key);
+        }
+    }
+
+    private static WatchService newWatchService(final Path dir) {
+        try {
+            return dir.getFileSystem().newWatchService();
+        } catch (UnsupportedOperationException e) {
+            return null;
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    /**
+     * The files added, changed and removed between two polls
+     */
+    public static class Changes {
+        private final Set<Path> added = new HashSet<Path>();
+        private final Set<Path> changed = new HashSet<Path>();
+        private final Set<Path> removed = new HashSet<Path>();
+
+        public Set<Path> getAdded() { return Collections.unmodifiableSet(added); }
+
+        public Set<Path> getChanged() { return Collections.unmodifiableSet(changed); }
+
+        public Set<Path> getRemoved() { return Collections.unmodifiableSet(removed); }
+
+        public boolean isEmpty() { return added.isEmpty() && changed.isEmpty() && removed.isEmpty(); }
+
+        @Override
+        public String toString() { return "added:" + added + " changed:" + changed + " removed:" + removed; }
+    }
+
+    private static class DirectoryState {
+        final WatchKey key;
+        final Map<Path, FileState> files = new HashMap<Path, FileState>();
+        final Set<Path> subdirectories = new HashSet<Path>();
+
+        DirectoryState(final WatchKey key) { this.key = key; }
+    }
+
+    private static class FileState {
+        private final long modified;
+        private final long size;
+
+        FileState(final BasicFileAttributes attributes) {
+            modified = attributes.lastModifiedTime().toMillis();
+            size = attributes.size();
+        }
+
+        @Override
+        public boolean equals(final Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof FileState)) {
+                return false;
+            }
+
+            final FileState that = (FileState) o;
+            return modified == that.modified && size == that.size;
+        }
+
+        @Override
+        public int hashCode() { return 31 * (int) (modified ^ (modified >>> 32)) + (int) (size ^ (size >>> 32)); }
+    }
+}
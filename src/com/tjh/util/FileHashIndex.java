@@ -0,0 +1,285 @@
+package com.tjh.util;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Consumer;
+
+/**
+ * Hashes the contents of files, remembering each hash along with the modification time and size of the file it came
+ * from. A file is only read again once its modification time or size changes. The remembered hashes can be saved to and
+ * loaded from a compact binary file, so they survive restarts.
+ * <p/>
+ * Files are read through a channel into one reusable direct buffer per thread, so hashing doesn't copy them onto the
+ * heap or leave a memory mapping behind for every file, and many files are hashed in parallel.
+ */
+public class FileHashIndex {
+    public static final String DEFAULT_ALGORITHM = "SHA-256";
+    private static final int FORMAT = 0x46484931;
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    //one reusable buffer per hashing thread, rather than one per file
+    private static final ThreadLocal<ByteBuffer> buffers = new ThreadLocal<ByteBuffer>() {
+        @Override
+        protected ByteBuffer initialValue() { return ByteBuffer.allocateDirect(BUFFER_SIZE); }
+    };
+
+    private final String algorithm;
+    private final ConcurrentMap<Path, Entry> entries = new ConcurrentHashMap<Path, Entry>();
+
+    public FileHashIndex() { this(DEFAULT_ALGORITHM); }
+
+    /**
+     * @param algorithm the MessageDigest algorithm to hash with
+     */
+    public FileHashIndex(final String algorithm) {
+        digest(algorithm);
+        this.algorithm = algorithm;
+    }
+
+    public String getAlgorithm() { return algorithm; }
+
+    /**
+     * @return the number of hashes remembered
+     */
+    public int size() { return entries.size(); }
+
+    /**
+     * @param file the file to hash
+     * @return the hash of the contents of <code>file</code>, read from the file only if it changed since it was last
+     *         hashed
+     * @throws IOException if the file can't be read
+     */
+    public byte[] hash(final Path file) throws IOException {
+        final Path key = file.toAbsolutePath().normalize();
+        final BasicFileAttributes attributes = java.nio.file.Files.readAttributes(key, BasicFileAttributes.class);
+        final long modified = attributes.lastModifiedTime().toMillis();
+
+        Entry entry = entries.get(key);
+        if (entry == null || entry.modified != modified || entry.size != attributes.size()) {
+            entry = new Entry(modified, attributes.size(), digest(key));
+            entries.put(key, entry);
+        }
+
+        return entry.hash.clone();
+    }
+
+    /**
+     * Hashes <code>files</code> in parallel.
+     *
+     * @param files the files to hash
+     * @return the hash of each of <code>files</code>
+     * @throws IOException if a file can't be read
+     * @see #hash(Path)
+     */
+    public Map<Path, byte[]> hashAll(final Collection<Path> files) throws IOException {
+        final Map<Path, byte[]> result = new ConcurrentHashMap<Path, byte[]>(files.size() * 4 / 3 + 1);
+        try {
+            files.parallelStream().forEach(new Consumer<Path>() {
+                public void accept(final Path file) {
+                    try {
+                        result.put(file, hash(file));
+                    } catch (IOException e) { throw new UncheckedIOException(e); }
+                }
+            });
+        } catch (UncheckedIOException e) { throw e.getCause(); }
+
+        return result;
+    }
+
+    /**
+     * Finds the files beneath <code>baseDir</code> whose contents are identical. Only files that share their size with
+     * another file are hashed.
+     *
+     * @param baseDir the directory to search
+     * @param matcher decides which files are compared
+     * @return groups of two or more files with the same contents
+     * @throws IOException if a file can't be read
+     */
+    public Collection<Set<Path>> duplicates(final Path baseDir, final PathMatcher matcher) throws IOException {
+        final ConcurrentMap<Long, Collection<Path>> bySize = new ConcurrentHashMap<Long, Collection<Path>>();
+        Files.find(baseDir, new PathMatcher() {
+            public boolean matches(final Path path) {
+                return java.nio.file.Files.isRegularFile(path) && matcher.matches(path);
+            }
+        }, new Block<Path, Boolean>() {
+            public Boolean invoke(final Path path) {
+                final long size;
+                try {
+                    size = java.nio.file.Files.size(path);
+                } catch (IOException e) {
+                    //gone since it was found
+                    return true;
+                }
+                Collection<Path> sameSize = bySize.get(size);
+                if (sameSize == null) {
+                    final Collection<Path> newSize = Collections.synchronizedList(new ArrayList<Path>());
+                    sameSize = bySize.putIfAbsent(size, newSize);
+                    if (sameSize == null) {
+                        sameSize = newSize;
+                    }
+                }
+                sameSize.add(path);
+                return true;
+            }
+        });
+
+        final List<Path> candidates = new ArrayList<Path>();
+        for (final Collection<Path> sameSize : bySize.values()) {
+            if (sameSize.size() > 1) {
+                candidates.addAll(sameSize);
+            }
+        }
+
+        final Map<ByteBuffer, Set<Path>> byHash = new HashMap<ByteBuffer, Set<Path>>();
+        for (final Map.Entry<Path, byte[]> entry : hashAll(candidates).entrySet()) {
+            final ByteBuffer hash = ByteBuffer.wrap(entry.getValue());
+            Set<Path> sameHash = byHash.get(hash);
+            if (sameHash == null) {
+                byHash.put(hash, sameHash = new HashSet<Path>());
+            }
+            sameHash.add(entry.getKey());
+        }
+
+        final Collection<Set<Path>> result = new ArrayList<Set<Path>>();
+        for (final Set<Path> sameHash : byHash.values()) {
+            if (sameHash.size() > 1) {
+                result.add(sameHash);
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * Forgets hashes of files that no longer exist.
+     *
+     * @return the number of hashes forgotten
+     */
+    public int prune() {
+        int result = 0;
+        for (final Path file : entries.keySet()) {
+            if (!java.nio.file.Files.exists(file)) {
+                entries.remove(file);
+                result++;
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * Atomically writes the remembered hashes to <code>file</code>.
+     *
+     * @param file the file to write
+     * @throws IOException if the file can't be written
+     */
+    public void save(final File file) throws IOException {
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        final DataOutputStream out = new DataOutputStream(bytes);
+        out.writeInt(FORMAT);
+        out.writeUTF(algorithm);
+        final Map<Path, Entry> snapshot = new HashMap<Path, Entry>(entries);
+        out.writeInt(snapshot.size());
+        for (final Map.Entry<Path, Entry> entry : snapshot.entrySet()) {
+            out.writeUTF(entry.getKey().toString());
+            out.writeLong(entry.getValue().modified);
+            out.writeLong(entry.getValue().size);
+            out.writeByte(entry.getValue().hash.length);
+            out.write(entry.getValue().hash);
+        }
+        out.flush();
+
+        Files.writeBytesToFileAtomically(file, bytes.toByteArray());
+    }
+
+    /**
+     * Adds the hashes saved in <code>file</code> by {@link #save(File)}, replacing any already remembered for the same
+     * files.
+     *
+     * @param file the file to read
+     * @throws IOException if the file can't be read, wasn't written by {@link #save(File)}, or holds hashes made with
+     *                     a different algorithm
+     */
+    public void load(final File file) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(
+                new FileInputStream(file)))) {
+            if (in.readInt() != FORMAT) {
+                throw new IOException("Not a hash index: " + file);
+            }
+            final String savedAlgorithm = in.readUTF();
+            if (!algorithm.equals(savedAlgorithm)) {
+                throw new IOException("Expected " + algorithm + " hashes, but " + file + " has " + savedAlgorithm);
+            }
+
+            final int count = in.readInt();
+            final Map<Path, Entry> loaded = new HashMap<Path, Entry>(count * 4 / 3 + 1);
+            for (int i = 0; i < count; i++) {
+                final Path path = Paths.get(in.readUTF());
+                final long modified = in.readLong();
+                final long size = in.readLong();
+                final byte[] hash = new byte[in.readUnsignedByte()];
+                in.readFully(hash);
+                loaded.put(path, new Entry(modified, size, hash));
+            }
+            entries.putAll(loaded);
+        }
+    }
+
+    private byte[] digest(final Path file) throws IOException {
+        final MessageDigest digest = digest(algorithm);
+        final ByteBuffer buffer = buffers.get();
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            buffer.clear();
+            while (channel.read(buffer) >= 0) {
+                buffer.flip();
+                digest.update(buffer);
+                buffer.clear();
+            }
+        }
+
+        return digest.digest();
+    }
+
+    private static MessageDigest digest(final String algorithm) {
+        try {
+            return MessageDigest.getInstance(algorithm);
+        } catch (NoSuchAlgorithmException e) { throw new IllegalArgumentException(e); }
+    }
+
+    private static class Entry {
+        final long modified;
+        final long size;
+        final byte[] hash;
+
+        Entry(final long modified, final long size, final byte[] hash) {
+            this.modified = modified;
+            this.size = size;
+            this.hash = hash;
+        }
+    }
+}
@@ -1,14 +1,44 @@
 package com.tjh.util;
 
+import java.io.BufferedReader;
 import java.io.File;
 import java.io.FileFilter;
 import java.io.FileInputStream;
-import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.Charset;
+import java.nio.file.DirectoryIteratorException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.Deque;
 import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 public class Files {
     public static byte[] fileBytes(final File file) throws IOException {
@@ -16,31 +46,324 @@ public class Files {
             throw new RuntimeException("File length too long");
         }
 
-        final InputStream inputStream = new FileInputStream(file);
-        final byte[] result = new byte[(int) file.length()];
+        try (InputStream inputStream = new FileInputStream(file)) {
+            final byte[] result = new byte[(int) file.length()];
 
-        int offset = 0;
-        int bytesRead;
-        while (offset < result.length
-            && (bytesRead = inputStream.read(result, offset, result.length - offset)) >= 0) {
-            offset += bytesRead;
+            int offset = 0;
+            int bytesRead;
+            while (offset < result.length
+                && (bytesRead = inputStream.read(result, offset, result.length - offset)) >= 0) {
+                offset += bytesRead;
+            }
+
+            if (offset < result.length) {
+                throw new IOException(
+                    "Could only read " + offset + " bytes out of " + result.length + " from " + file.getName());
+            }
+
+            return result;
         }
+    }
+
+    /**
+     * Maps <code>file</code> read-only into memory, without copying it onto the heap.
+     *
+     * @param file the file to map
+     * @return buffers covering the whole file, in order
+     * @throws IOException if the file can't be mapped
+     * @see #map(File, int)
+     */
+    public static List<MappedByteBuffer> map(final File file) throws IOException {
+        return map(file, Integer.MAX_VALUE);
+    }
 
-        if (offset < result.length) {
-            throw new IOException(
-                "Could only read " + offset + " bytes out of " + result.length + " from " + file.getName());
+    /**
+     * Maps <code>file</code> read-only into memory in chunks of at most <code>chunkSize</code> bytes. A single buffer
+     * can't address more than 2GB, so larger files are returned as several consecutive buffers.
+     * <p/>
+     * The mappings stay valid after the file is closed, and are released when the buffers are garbage collected
+     *
+     * @param file      the file to map
+     * @param chunkSize the largest number of bytes to map into any one buffer
+     * @return buffers covering the whole file, in order
+     * @throws IOException if the file can't be mapped
+     */
+    public static List<MappedByteBuffer> map(final File file, final int chunkSize) throws IOException {
+        if (chunkSize <= 0) {
+            throw new IllegalArgumentException("chunkSize must be positive: " + chunkSize);
         }
 
-        inputStream.close();
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            final long size = channel.size();
+            final List<MappedByteBuffer> result = new ArrayList<MappedByteBuffer>((int) (size / chunkSize) + 1);
+            long position = 0;
+            do {
+                final long length = Math.min(chunkSize, size - position);
+                result.add(channel.map(FileChannel.MapMode.READ_ONLY, position, length));
+                position += length;
+            } while (position < size);
 
-        return result;
+            return result;
+        }
+    }
+
+    /**
+     * Copies <code>source</code> to <code>target</code>, replacing it if it exists. The bytes are moved with
+     * <code>FileChannel.transferTo</code>, so the operating system can copy them without passing them through the
+     * JVM. Copying a file onto itself, or onto a hard link to it, leaves it untouched.
+     *
+     * @param source the file to copy
+     * @param target the file to write
+     * @return the number of bytes copied
+     * @throws IOException if either file can't be accessed
+     */
+    public static long copy(final File source, final File target) throws IOException {
+        try (FileChannel in = FileChannel.open(source.toPath(), StandardOpenOption.READ)) {
+            //truncating the target first would empty a file copied onto itself or a hard link to it
+            if (target.exists() && java.nio.file.Files.isSameFile(source.toPath(), target.toPath())) {
+                return in.size();
+            }
+
+            try (FileChannel out = FileChannel.open(target.toPath(), StandardOpenOption.WRITE,
+                    StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                return transfer(in, out);
+            }
+        }
+    }
+
+    /**
+     * Copies all of <code>source</code> into <code>target</code> with <code>FileChannel.transferTo</code>.
+     * <code>target</code> is left open.
+     *
+     * @param source the file to copy
+     * @param target the channel to write to, such as a socket or another file
+     * @return the number of bytes copied, which is less than the size of <code>source</code> if it shrank during the
+     *         copy, or if <code>target</code> is non-blocking and stopped accepting bytes
+     * @throws IOException if the copy fails
+     */
+    public static long copy(final File source, final WritableByteChannel target) throws IOException {
+        try (FileChannel in = FileChannel.open(source.toPath(), StandardOpenOption.READ)) {
+            return transfer(in, target);
+        }
+    }
+
+    private static long transfer(final FileChannel in, final WritableByteChannel target) throws IOException {
+        final long size = in.size();
+        long position = 0;
+        long transferred;
+        //transferTo may move fewer bytes than asked for, e.g. 2GB at a time on Linux, and none at all if the source
+        //shrank or a non-blocking target is full
+        while (position < size && (transferred = in.transferTo(position, size - position, target)) > 0) {
+            position += transferred;
+        }
+
+        return position;
+    }
+
+    /**
+     * Copies up to <code>count</code> bytes from <code>source</code> into <code>target</code> with
+     * <code>FileChannel.transferFrom</code>, replacing <code>target</code> if it exists. <code>source</code> is left
+     * open.
+     *
+     * @param source the channel to read from
+     * @param target the file to write
+     * @param count  the most bytes to copy
+     * @return the number of bytes copied, which is less than <code>count</code> if <code>source</code> ran out
+     * @throws IOException if the copy fails
+     */
+    public static long copy(final ReadableByteChannel source, final File target, final long count) throws IOException {
+        try (FileChannel out = FileChannel.open(target.toPath(), StandardOpenOption.WRITE, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            long position = 0;
+            long transferred;
+            while (position < count && (transferred = out.transferFrom(source, position, count - position)) > 0) {
+                position += transferred;
+            }
+
+            return position;
+        }
     }
 
     public static void writeBytesToFile(final File file, final byte[] bytes) throws IOException {
-        FileOutputStream fos = new FileOutputStream(file);
-        fos.write(bytes);
-        fos.flush();
-        fos.close();
+        writeBytesToFile(file, ByteBuffer.wrap(bytes));
+    }
+
+    /**
+     * Writes the remaining bytes of <code>buffer</code> to <code>file</code>, replacing its contents. The buffer is
+     * handed to the channel as a whole, so small writes take one system call, and direct buffers aren't copied at all.
+     *
+     * @param file   the file to write
+     * @param buffer the bytes to write. Its position is advanced to its limit
+     * @throws IOException if the file can't be written
+     */
+    public static void writeBytesToFile(final File file, final ByteBuffer buffer) throws IOException {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.WRITE,
+                StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        }
+    }
+
+    public static void writeBytesToFileAtomically(final File file, final byte[] bytes) throws IOException {
+        writeBytesToFileAtomically(file, ByteBuffer.wrap(bytes));
+    }
+
+    /**
+     * Replaces the contents of <code>file</code> with the remaining bytes of <code>buffer</code>, so that a crash
+     * leaves either the old contents or the new ones. The bytes are written to a temp file beside <code>file</code>,
+     * forced to disk and renamed over it. Use an {@link AtomicFileBatch} to write many files at once.
+     *
+     * @param file   the file to write
+     * @param buffer the bytes to write. Its position is left unchanged
+     * @throws IOException if the file can't be written, or the file system can't rename atomically
+     */
+    public static void writeBytesToFileAtomically(final File file, final ByteBuffer buffer) throws IOException {
+        new AtomicFileBatch().add(file, buffer).commit();
+    }
+
+    /**
+     * Reads <code>file</code> in chunks, calling <code>block</code> with each one in turn.
+     *
+     * @see #eachChunk(File, int, ExecutorService, Block)
+     */
+    public static boolean eachChunk(final File file, final int chunkSize, final Block<ByteBuffer, Boolean> block)
+            throws IOException {
+        return eachChunk(file, chunkSize, null, block);
+    }
+
+    /**
+     * Reads <code>file</code> in chunks of <code>chunkSize</code> bytes (the last may be shorter), calling
+     * <code>block</code> with each one in turn. Chunks are read into direct buffers that are reused for the whole file,
+     * so memory use doesn't depend on the size of the file. <code>block</code> must not hold on to a chunk after it
+     * returns.
+     * <p/>
+     * If <code>readAhead</code> is given, the next chunk is read on it while <code>block</code> processes the current
+     * one, at the cost of a second buffer.
+     *
+     * @param file      the file to read
+     * @param chunkSize the size of each chunk
+     * @param readAhead the executor to read ahead on, or null to read each chunk on the calling thread
+     * @param block     called with each chunk, positioned at its first byte. Return true to keep reading, false to stop
+     * @return true if the whole file was read, false if <code>block</code> stopped the read
+     * @throws IOException if the file can't be read
+     */
+    public static boolean eachChunk(final File file, final int chunkSize, final ExecutorService readAhead,
+                                    final Block<ByteBuffer, Boolean> block) throws IOException {
+        if (chunkSize <= 0) {
+            throw new IllegalArgumentException("chunkSize must be positive: " + chunkSize);
+        }
+
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            return readAhead == null
+                    ? eachChunk(channel, ByteBuffer.allocateDirect(chunkSize), block)
+                    : eachChunk(channel, ByteBuffer.allocateDirect(chunkSize), ByteBuffer.allocateDirect(chunkSize),
+                            readAhead, block);
+        }
+    }
+
+    private static boolean eachChunk(final FileChannel channel, final ByteBuffer buffer,
+                                     final Block<ByteBuffer, Boolean> block) throws IOException {
+        while (fill(channel, buffer) > 0) {
+            buffer.flip();
+            if (!block.invoke(buffer)) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    private static boolean eachChunk(final FileChannel channel, ByteBuffer current, ByteBuffer next,
+                                     final ExecutorService readAhead, final Block<ByteBuffer, Boolean> block)
+            throws IOException {
+        Future<Integer> pending = readAhead.submit(new ChunkReader(channel, current));
+        try {
+            while (awaitChunk(pending) > 0) {
+                pending = readAhead.submit(new ChunkReader(channel, next));
+                current.flip();
+                if (!block.invoke(current)) {
+                    return false;
+                }
+
+                final ByteBuffer swap = current;
+                current = next;
+                next = swap;
+            }
+
+            return true;
+        } finally {
+            //the channel is closed when we return, so let any outstanding read finish first
+            try {
+                pending.get();
+            } catch (Exception e) {
+                //already reported, or no longer wanted
+            }
+        }
+    }
+
+    private static int awaitChunk(final Future<Integer> pending) throws IOException {
+        try {
+            return pending.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            throw new RuntimeException(e.getCause());
+        }
+    }
+
+    /**
+     * Reads from <code>channel</code> until <code>buffer</code> is full or the channel is exhausted.
+     *
+     * @return the number of bytes read
+     */
+    private static int fill(final FileChannel channel, final ByteBuffer buffer) throws IOException {
+        buffer.clear();
+        while (buffer.hasRemaining() && channel.read(buffer) >= 0) {
+            //keep reading
+        }
+
+        return buffer.position();
+    }
+
+    private static class ChunkReader implements Callable<Integer> {
+        private final FileChannel channel;
+        private final ByteBuffer buffer;
+
+        ChunkReader(final FileChannel channel, final ByteBuffer buffer) {
+            this.channel = channel;
+            this.buffer = buffer;
+        }
+
+        public Integer call() throws IOException { return fill(channel, buffer); }
+    }
+
+    /**
+     * Reads <code>file</code> a line at a time, calling <code>block</code> with each line, without its line
+     * terminator. Only one line is held in memory at a time.
+     *
+     * @param file    the file to read
+     * @param charset the encoding of <code>file</code>
+     * @param block   called with each line. Return true to keep reading, false to stop
+     * @return true if the whole file was read, false if <code>block</code> stopped the read
+     * @throws IOException if the file can't be read
+     */
+    public static boolean eachLine(final File file, final Charset charset, final Block<String, Boolean> block)
+            throws IOException {
+        try (BufferedReader reader = java.nio.file.Files.newBufferedReader(file.toPath(), charset)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (!block.invoke(line)) {
+                    return false;
+                }
+            }
+
+            return true;
+        }
     }
 
     public static Collection<File> find(final File baseDir, final FileFilter filter) {
@@ -71,5 +394,190 @@ public class Files {
         return result;
     }
 
+    /**
+     * Walks <code>baseDir</code> in parallel on the common ForkJoinPool, calling <code>block</code> for each file or
+     * directory beneath it that <code>matcher</code> accepts.
+     *
+     * @see #find(ForkJoinPool, Path, PathMatcher, Block)
+     */
+    public static boolean find(final Path baseDir, final PathMatcher matcher, final Block<Path, Boolean> block) {
+        return find(ForkJoinPool.commonPool(), baseDir, matcher, block);
+    }
+
+    /**
+     * Walks <code>baseDir</code> in parallel, calling <code>block</code> for each file or directory beneath it that
+     * <code>matcher</code> accepts. Each directory is read once, and each subdirectory is walked as a separate task on
+     * <code>pool</code>, so <code>block</code> must be thread-safe. Matches are handed to <code>block</code> as they
+     * are found rather than collected.
+     * <p/>
+     * Returning false from <code>block</code> stops the walk. Symbolic links to directories are not followed, and
+     * directories that can't be read are skipped.
+     *
+     * @param pool    the pool to walk the tree on
+     * @param baseDir the directory to search
+     * @param matcher decides which paths are passed to <code>block</code>
+     * @param block   called for every match. Return true to keep walking, false to stop
+     * @return true if the whole tree was walked, false if <code>block</code> stopped the walk
+     */
+    public static boolean find(final ForkJoinPool pool, final Path baseDir, final PathMatcher matcher,
+                               final Block<Path, Boolean> block) {
+        if (!java.nio.file.Files.isDirectory(baseDir)) {
+            throw new IllegalArgumentException("baseDir must be a directory: " + baseDir);
+        }
+
+        final AtomicBoolean stopped = new AtomicBoolean();
+        pool.invoke(new FindTask(baseDir, matcher, block, stopped));
+        return !stopped.get();
+    }
+
+    /**
+     * Lazily streams every file or directory beneath <code>baseDir</code> that <code>matcher</code> accepts. Nothing is
+     * read until the stream is consumed, so short-circuiting operations like <code>findFirst</code> end the walk
+     * early. The stream holds open directories, so close it when done.
+     * <p/>
+     * Like {@link #find(ForkJoinPool, Path, PathMatcher, Block)}, symbolic links to directories are not followed, and
+     * directories beneath <code>baseDir</code> that can't be read are skipped rather than ending the stream.
+     *
+     * @param baseDir the directory to search
+     * @param matcher decides which paths are included
+     * @return a stream of matching paths
+     * @throws IOException if <code>baseDir</code> can't be read
+     */
+    public static Stream<Path> stream(final Path baseDir, final PathMatcher matcher) throws IOException {
+        if (!java.nio.file.Files.isDirectory(baseDir)) {
+            throw new IllegalArgumentException("baseDir must be a directory: " + baseDir);
+        }
+
+        final PathWalker walker = new PathWalker(baseDir, matcher);
+        return StreamSupport.stream(walker, false).onClose(new Runnable() {
+            public void run() { walker.close(); }
+        });
+    }
+
+    /**
+     * @param filter a FileFilter
+     * @return a PathMatcher that accepts the same paths as <code>filter</code>
+     */
+    public static PathMatcher matcher(final FileFilter filter) {
+        return new PathMatcher() {
+            public boolean matches(final Path path) { return filter.accept(path.toFile()); }
+        };
+    }
+
     public static File getTempDir(){ return new File(System.getProperty("java.io.tmpdir")); }
+
+    private static class FindTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final Path dir;
+        private final PathMatcher matcher;
+        private final Block<Path, Boolean> block;
+        private final AtomicBoolean stopped;
+
+        FindTask(final Path dir, final PathMatcher matcher, final Block<Path, Boolean> block,
+                 final AtomicBoolean stopped) {
+            this.dir = dir;
+            this.matcher = matcher;
+            this.block = block;
+            this.stopped = stopped;
+        }
+
+        @Override
+        protected void compute() {
+            final List<FindTask> subtasks = new ArrayList<FindTask>();
+            try (DirectoryStream<Path> entries = java.nio.file.Files.newDirectoryStream(dir)) {
+                for (final Path entry : entries) {
+                    if (stopped.get()) {
+                        break;
+                    }
+                    if (matcher.matches(entry) && !block.invoke(entry)) {
+                        stopped.set(true);
+                        break;
+                    }
+                    if (java.nio.file.Files.isDirectory(entry, LinkOption.NOFOLLOW_LINKS)) {
+                        final FindTask subtask = new FindTask(entry, matcher, block, stopped);
+                        subtask.fork();
+                        subtasks.add(subtask);
+                    }
+                }
+            } catch (IOException | DirectoryIteratorException e) {
+                //unreadable directories are skipped, as find(File, FileFilter) does
+            }
+
+            for (final FindTask subtask : subtasks) {
+                subtask.join();
+            }
+        }
+    }
+
+    /**
+     * Walks a tree depth first, holding one open DirectoryStream per level
+     */
+    private static class PathWalker extends Spliterators.AbstractSpliterator<Path> {
+        private final PathMatcher matcher;
+        private final Deque<DirectoryStream<Path>> streams = new ArrayDeque<DirectoryStream<Path>>();
+        private final Deque<Iterator<Path>> entries = new ArrayDeque<Iterator<Path>>();
+
+        PathWalker(final Path baseDir, final PathMatcher matcher) throws IOException {
+            super(Long.MAX_VALUE, Spliterator.DISTINCT | Spliterator.NONNULL);
+            this.matcher = matcher;
+            push(java.nio.file.Files.newDirectoryStream(baseDir));
+        }
+
+        public boolean tryAdvance(final Consumer<? super Path> action) {
+            while (!entries.isEmpty()) {
+                final Path entry = next(entries.peek());
+                if (entry == null) {
+                    entries.pop();
+                    closeQuietly(streams.pop());
+                    continue;
+                }
+
+                if (java.nio.file.Files.isDirectory(entry, LinkOption.NOFOLLOW_LINKS)) {
+                    try {
+                        push(java.nio.file.Files.newDirectoryStream(entry));
+                    } catch (IOException e) {
+                        //unreadable directories are skipped, as find does
+                    }
+                }
+                if (matcher.matches(entry)) {
+                    action.accept(entry);
+                    return true;
+                }
+            }
+
+            return false;
+        }
+
+        void close() {
+            entries.clear();
+            while (!streams.isEmpty()) {
+                closeQuietly(streams.pop());
+            }
+        }
+
+        private void push(final DirectoryStream<Path> stream) {
+            streams.push(stream);
+            entries.push(stream.iterator());
+        }
+
+        /**
+         * @return the next entry, or null if there are no more or the rest of the directory can't be read
+         */
+        private static Path next(final Iterator<Path> iterator) {
+            try {
+                return iterator.hasNext() ? iterator.next() : null;
+            } catch (DirectoryIteratorException e) {
+                return null;
+            }
+        }
+
+        private static void closeQuietly(final DirectoryStream<Path> stream) {
+            try {
+                stream.close();
+            } catch (IOException e) {
+                //nothing was written, so there is nothing to lose
+            }
+        }
+    }
 }
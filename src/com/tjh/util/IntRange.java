@@ -0,0 +1,204 @@
+package com.tjh.util;
+
+import java.util.Comparator;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+import java.util.Spliterator;
+import java.util.function.IntConsumer;
+import java.util.stream.IntStream;
+import java.util.stream.StreamSupport;
+
+/**
+ * A {@link Range} of <code>int</code>s that never boxes. Iteration walks from <code>min</code> to <code>max</code> in
+ * increments of <code>step</code> using a primitive cursor, so iterating millions of values allocates nothing beyond
+ * the iterator itself.
+ * <p/>
+ * Like {@link Range}, <code>contains</code>, <code>intersection</code> and <code>union</code> treat the range as an
+ * interval; <code>step</code> only affects iteration.
+ * <p/>
+ * {@link #spliterator()} knows its exact size and splits at the midpoint, so {@link #parallelStream()} divides the
+ * range evenly across a fork/join pool.
+ *
+ * @see LongRange
+ */
+public final class IntRange implements Iterable<Integer> {
+    private final int min;
+    private final int max;
+    private final int step;
+
+    public IntRange(final int min, final int max) { this(min, max, true); }
+
+    public IntRange(final int min, final int max, final boolean inclusive) {
+        this(min, inclusive ? max : exclusiveMax(min, max), 1);
+    }
+
+    private IntRange(final int min, final int max, final int step) {
+        if (min > max) {
+            throw new IllegalArgumentException("min value cannot be greater than max value:" + min + " > " + max);
+        }
+        if (step < 1) {
+            throw new IllegalArgumentException("step must be positive: " + step);
+        }
+
+        this.min = min;
+        this.max = max;
+        this.step = step;
+    }
+
+    private static int exclusiveMax(final int min, final int max) {
+        if (min >= max) {
+            throw new IllegalArgumentException("exclusive range must have min < max: <" + min + ", " + max + ">");
+        }
+        return max - 1;
+    }
+
+    /**
+     * @param step the distance between successive elements during iteration
+     * @return a range with the same bounds as this one, iterating in increments of <code>step</code>
+     */
+    public IntRange step(final int step) { return new IntRange(min, max, step); }
+
+    /**
+     * @return the number of elements produced by {@link #iterator()}
+     */
+    public long size() { return ((long) max - min) / step + 1; }
+
+    public boolean contains(final int member) { return min <= member && member <= max; }
+
+    public boolean contains(final IntRange otherRange) { return min <= otherRange.min && otherRange.max <= max; }
+
+    /**
+     * @param otherRange the range to intersect with
+     * @return the overlap of the two ranges, iterating with this range's step
+     * @throws IllegalArgumentException if the ranges do not overlap
+     */
+    public IntRange intersection(final IntRange otherRange) {
+        return new IntRange(Math.max(min, otherRange.min), Math.min(max, otherRange.max), step);
+    }
+
+    /**
+     * @param otherRange the range to combine with
+     * @return the smallest range covering both ranges, iterating with this range's step
+     */
+    public IntRange union(final IntRange otherRange) {
+        return new IntRange(Math.min(min, otherRange.min), Math.max(max, otherRange.max), step);
+    }
+
+    //iterable
+
+    public PrimitiveIterator.OfInt iterator() { return new IntRangeIterator(); }
+
+    public Spliterator.OfInt spliterator() { return new IntRangeSpliterator(0, size()); }
+
+    public IntStream stream() { return StreamSupport.intStream(spliterator(), false); }
+
+    public IntStream parallelStream() { return StreamSupport.intStream(spliterator(), true); }
+
+    //object
+
+    @Override
+    public boolean equals(final Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+
+        final IntRange range = (IntRange) o;
+
+        return min == range.min && max == range.max && step == range.step;
+    }
+
+    @Override
+    public int hashCode() {
+        int result = min;
+        result = 31 * result + max;
+        result = 31 * result + step;
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        final StringBuilder sb = new StringBuilder();
+        sb.append("IntRange");
+        sb.append("{min=").append(min);
+        sb.append(", max=").append(max);
+        sb.append(", step=").append(step);
+        sb.append('}');
+        return sb.toString();
+    }
+
+    //bean
+    public int getMin() { return min; }
+
+    public int getMax() { return max; }
+
+    public int getStep() { return step; }
+
+    private class IntRangeIterator implements PrimitiveIterator.OfInt {
+        //a long cursor lets iteration run up to Integer.MAX_VALUE without overflowing
+        private long current = min;
+
+        public int nextInt() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+
+            final int result = (int) current;
+            current += step;
+            return result;
+        }
+
+        public boolean hasNext() { return current <= max; }
+
+        public void remove() { throw new UnsupportedOperationException(); }
+    }
+
+    /**
+     * Walks the elements with indices <code>[index, fence)</code>, where element <code>i</code> is
+     * <code>min + i * step</code>.
+     */
+    private class IntRangeSpliterator implements Spliterator.OfInt {
+        private long index;
+        private final long fence;
+
+        IntRangeSpliterator(final long index, final long fence) {
+            this.index = index;
+            this.fence = fence;
+        }
+
+        public OfInt trySplit() {
+            final long mid = (index + fence) >>> 1;
+            IntRangeSpliterator result = null;
+            if (mid > index) {
+                result = new IntRangeSpliterator(index, mid);
+                index = mid;
+            }
+
+            return result;
+        }
+
+        public boolean tryAdvance(final IntConsumer action) {
+            boolean result = false;
+            if (index < fence) {
+                action.accept((int) (min + index++ * step));
+                result = true;
+            }
+
+            return result;
+        }
+
+        public void forEachRemaining(final IntConsumer action) {
+            long value = min + index * step;
+            for (; index < fence; index++, value += step) {
+                action.accept((int) value);
+            }
+        }
+
+        public long estimateSize() { return fence - index; }
+
+        public int characteristics() {
+            return ORDERED | SIZED | SUBSIZED | SORTED | DISTINCT | NONNULL | IMMUTABLE;
+        }
+
+        @Override
+        public Comparator<? super Integer> getComparator() { return null; }
+    }
+}
@@ -0,0 +1,281 @@
+package com.tjh.util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * A sequence of keys for navigating nested maps, as used by {@link Maps#valueFor(Map, String)}. Compile a keypath once
+ * and reuse it; walking a map with it allocates nothing.
+ * <p/>
+ * Dotted keypaths are cached, so compiling the same string again is cheap. The cache holds the most recently used
+ * {@link #CACHE_SIZE} keypaths.
+ */
+public final class KeyPath {
+    public static final int CACHE_SIZE = 1024;
+
+    private static final Map<String, KeyPath> cache = new LinkedHashMap<String, KeyPath>(
+            Maps.capacityFor(CACHE_SIZE), 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(final Map.Entry<String, KeyPath> eldest) {
+            return size() > CACHE_SIZE;
+        }
+    };
+
+    private final Object[] keys;
+
+    private KeyPath(final Object[] keys) { this.keys = keys; }
+
+    /**
+     * @param keypath keys separated by dots, such as "key1.key2.key3". Trailing dots are ignored
+     * @return the compiled keypath
+     */
+    public static KeyPath compile(final String keypath) {
+        KeyPath result;
+        synchronized (cache) {
+            result = cache.get(keypath);
+        }
+
+        if (result == null) {
+            result = new KeyPath(split(keypath));
+            synchronized (cache) {
+                cache.put(keypath, result);
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * @param keys the keys to navigate, outermost first
+     * @return a keypath of <code>keys</code>. It isn't cached
+     */
+    public static KeyPath of(final Object... keys) { return new KeyPath(keys.clone()); }
+
+    /**
+     * @param keys the keys to navigate, outermost first
+     * @return a keypath of <code>keys</code>. It isn't cached
+     */
+    public static KeyPath of(final List<?> keys) { return new KeyPath(keys.toArray()); }
+
+    private static Object[] split(final String keypath) {
+        int end = keypath.length();
+        while (end > 0 && keypath.charAt(end - 1) == '.') {
+            end--;
+        }
+        if (end == 0) {
+            return keypath.isEmpty() ? new Object[]{""} : new Object[0];
+        }
+
+        final List<String> result = new ArrayList<String>();
+        int start = 0;
+        int dot;
+        while ((dot = keypath.indexOf('.', start)) >= 0 && dot < end) {
+            result.add(keypath.substring(start, dot));
+            start = dot + 1;
+        }
+        result.add(keypath.substring(start, end));
+
+        return result.toArray();
+    }
+
+    /**
+     * @return the number of keys
+     */
+    public int size() { return keys.length; }
+
+    /**
+     * @param index the position of the key, 0 being the outermost
+     * @return the key at <code>index</code>
+     */
+    public Object key(final int index) { return keys[index]; }
+
+    /**
+     * @return the keys, outermost first
+     */
+    public List<Object> keys() { return Collections.unmodifiableList(Arrays.asList(keys)); }
+
+    /**
+     * @param map the map to navigate
+     * @param <V> the expected type of the value
+     * @return the value at this keypath
+     * @throws NullPointerException if an intermediate map is missing
+     * @throws ClassCastException   if an intermediate value isn't a map
+     */
+    @SuppressWarnings({"unchecked"})
+    public <V> V get(final Map<?, ?> map) {
+        Object result = map;
+        for (final Object key : keys) {
+            result = ((Map<?, ?>) result).get(key);
+        }
+
+        return (V) result;
+    }
+
+    /**
+     * @param map   the map to navigate
+     * @param value the new value
+     * @param <V>   the value type
+     * @return the old value at this keypath
+     * @see #put(Map, Object, boolean)
+     */
+    public <V> V put(final Map<?, ?> map, final V value) { return put(map, value, false); }
+
+    /**
+     * Puts <code>value</code> at this keypath
+     *
+     * @param map           the map to navigate
+     * @param value         the new value
+     * @param createMissing true to put a new HashMap in place of each missing intermediate map, false to fail
+     * @param <V>           the value type
+     * @return the old value at this keypath
+     * @throws NullPointerException if an intermediate map is missing and <code>createMissing</code> is false
+     * @throws ClassCastException   if an intermediate value isn't a map
+     */
+    @SuppressWarnings({"unchecked"})
+    public <V> V put(final Map<?, ?> map, final V value, final boolean createMissing) {
+        if (keys.length == 0) {
+            throw new IllegalArgumentException("keypath has no keys");
+        }
+
+        return ((Map<Object, V>) walk(map, keys.length - 1, createMissing)).put(keys[keys.length - 1], value);
+    }
+
+    /**
+     * Gets the value at each of <code>keyPaths</code> from <code>map</code>. Consecutive keypaths that share leading
+     * keys share the walk through them, so list keypaths with common prefixes together.
+     *
+     * @param map      the map to navigate
+     * @param keyPaths the keypaths to read
+     * @return the value at each keypath, in the order given. Keypaths through missing intermediate maps yield null
+     * @see #getAll(Map, KeyPath...)
+     */
+    public static Object[] getAll(final Map<?, ?> map, final List<KeyPath> keyPaths) {
+        final Object[] result = new Object[keyPaths.size()];
+        final Walk walk = new Walk(map);
+        for (int i = 0; i < result.length; i++) {
+            final KeyPath keyPath = keyPaths.get(i);
+            if (keyPath.keys.length == 0) {
+                result[i] = map;
+            } else {
+                final Map<?, ?> parent = walk.to(keyPath, false);
+                result[i] = parent == null ? null : parent.get(keyPath.keys[keyPath.keys.length - 1]);
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * @see #getAll(Map, List)
+     */
+    public static Object[] getAll(final Map<?, ?> map, final KeyPath... keyPaths) {
+        return getAll(map, Arrays.asList(keyPaths));
+    }
+
+    /**
+     * Puts each value in <code>values</code> at its keypath in <code>map</code>. Consecutive keypaths that share
+     * leading keys share the walk through them.
+     *
+     * @param map           the map to navigate
+     * @param values        the values to put, by keypath
+     * @param createMissing true to put a new HashMap in place of each missing intermediate map, false to fail
+     * @see #put(Map, Object, boolean)
+     */
+    @SuppressWarnings({"unchecked"})
+    public static void putAll(final Map<?, ?> map, final Map<KeyPath, ?> values, final boolean createMissing) {
+        final Walk walk = new Walk(map);
+        for (final Map.Entry<KeyPath, ?> entry : values.entrySet()) {
+            final KeyPath keyPath = entry.getKey();
+            if (keyPath.keys.length == 0) {
+                throw new IllegalArgumentException("keypath has no keys");
+            }
+
+            final Map<Object, Object> parent = (Map<Object, Object>) walk.to(keyPath, createMissing);
+            if (parent == null) {
+                throw new NullPointerException("No map at " + keyPath.parentString() + " in " + keyPath);
+            }
+            parent.put(keyPath.keys[keyPath.keys.length - 1], entry.getValue());
+        }
+    }
+
+    @SuppressWarnings({"unchecked"})
+    private Map<?, ?> walk(final Map<?, ?> map, final int depth, final boolean createMissing) {
+        Map<?, ?> result = map;
+        for (int i = 0; i < depth; i++) {
+            Map<?, ?> next = (Map<?, ?>) result.get(keys[i]);
+            if (next == null && createMissing) {
+                next = new HashMap<Object, Object>();
+                ((Map<Object, Object>) result).put(keys[i], next);
+            }
+            result = next;
+        }
+
+        return result;
+    }
+
+    private String parentString() {
+        return Strings.join(".", Arrays.asList(keys).subList(0, keys.length - 1));
+    }
+
+    @Override
+    public boolean equals(final Object o) {
+        return this == o || o instanceof KeyPath && Arrays.equals(keys, ((KeyPath) o).keys);
+    }
+
+    @Override
+    public int hashCode() { return Arrays.hashCode(keys); }
+
+    @Override
+    public String toString() { return Strings.join(".", keys); }
+
+    /**
+     * The maps passed through on the way to the last keypath, so the next keypath can resume from the deepest one
+     * they share.
+     */
+    private static class Walk {
+        private final List<Map<?, ?>> maps = new ArrayList<Map<?, ?>>();
+        private KeyPath previous;
+
+        Walk(final Map<?, ?> root) { maps.add(root); }
+
+        /**
+         * @return the map holding the last key of <code>keyPath</code>, or null if an intermediate map is missing
+         */
+        @SuppressWarnings({"unchecked"})
+        Map<?, ?> to(final KeyPath keyPath, final boolean createMissing) {
+            final int depth = keyPath.keys.length - 1;
+            int shared = 0;
+            if (previous != null) {
+                final int limit = Math.min(depth, maps.size() - 1);
+                while (shared < limit && Objects.equals(keyPath.keys[shared], previous.keys[shared])) {
+                    shared++;
+                }
+            }
+            while (maps.size() > shared + 1) {
+                maps.remove(maps.size() - 1);
+            }
+
+            Map<?, ?> result = maps.get(shared);
+            for (int i = shared; i < depth && result != null; i++) {
+                Map<?, ?> next = (Map<?, ?>) result.get(keyPath.keys[i]);
+                if (next == null && createMissing) {
+                    next = new HashMap<Object, Object>();
+                    ((Map<Object, Object>) result).put(keyPath.keys[i], next);
+                }
+                result = next;
+                if (result != null) {
+                    maps.add(result);
+                }
+            }
+            previous = result == null ? null : keyPath;
+
+            return result;
+        }
+    }
+}
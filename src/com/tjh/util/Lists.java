@@ -40,8 +40,20 @@ public class Lists {
             classes.add(array.getClass().getComponentType());
         }
 
+        //prefer a common class over a common interface, when there is one
+        Class componentType = null;
+        for (final Class aClass : Classes.commonSupertypes(classes)) {
+            if (componentType == null || componentType.isInterface()) {
+                componentType = aClass;
+            }
+        }
+        if (componentType == null) {
+            //unrelated interfaces have no common supertype of their own
+            componentType = Object.class;
+        }
+
         //noinspection unchecked
-        return result.toArray((T[]) Array.newInstance(Classes.commonBaseClasses(classes).iterator().next(), result.size()));
+        return result.toArray((T[]) Array.newInstance(componentType, result.size()));
     }
 
     /**
@@ -0,0 +1,235 @@
+package com.tjh.util;
+
+import java.util.Comparator;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+import java.util.Spliterator;
+import java.util.function.LongConsumer;
+import java.util.stream.LongStream;
+import java.util.stream.StreamSupport;
+
+/**
+ * A {@link Range} of <code>long</code>s that never boxes. Iteration walks from <code>min</code> to <code>max</code> in
+ * increments of <code>step</code> using a primitive cursor, so iterating millions of values allocates nothing beyond
+ * the iterator itself.
+ * <p/>
+ * Like {@link Range}, <code>contains</code>, <code>intersection</code> and <code>union</code> treat the range as an
+ * interval; <code>step</code> only affects iteration.
+ * <p/>
+ * {@link #spliterator()} knows its exact size and splits at the midpoint, so {@link #parallelStream()} divides the
+ * range evenly across a fork/join pool.
+ *
+ * @see IntRange
+ */
+public final class LongRange implements Iterable<Long> {
+    private final long min;
+    private final long max;
+    private final long step;
+
+    public LongRange(final long min, final long max) { this(min, max, true); }
+
+    public LongRange(final long min, final long max, final boolean inclusive) {
+        this(min, inclusive ? max : exclusiveMax(min, max), 1);
+    }
+
+    private LongRange(final long min, final long max, final long step) {
+        if (min > max) {
+            throw new IllegalArgumentException("min value cannot be greater than max value:" + min + " > " + max);
+        }
+        if (step < 1) {
+            throw new IllegalArgumentException("step must be positive: " + step);
+        }
+
+        this.min = min;
+        this.max = max;
+        this.step = step;
+    }
+
+    private static long exclusiveMax(final long min, final long max) {
+        if (min >= max) {
+            throw new IllegalArgumentException("exclusive range must have min < max: <" + min + ", " + max + ">");
+        }
+        return max - 1;
+    }
+
+    /**
+     * @param step the distance between successive elements during iteration
+     * @return a range with the same bounds as this one, iterating in increments of <code>step</code>
+     */
+    public LongRange step(final long step) { return new LongRange(min, max, step); }
+
+    /**
+     * @return the number of elements produced by {@link #iterator()}, saturating at <code>Long.MAX_VALUE</code>
+     */
+    public long size() {
+        final long span = max - min;
+        //the span is exact when read as unsigned, since min <= max
+        final long steps = Long.divideUnsigned(span, step);
+        return steps < 0 || steps == Long.MAX_VALUE ? Long.MAX_VALUE : steps + 1;
+    }
+
+    public boolean contains(final long member) { return min <= member && member <= max; }
+
+    public boolean contains(final LongRange otherRange) { return min <= otherRange.min && otherRange.max <= max; }
+
+    /**
+     * @param otherRange the range to intersect with
+     * @return the overlap of the two ranges, iterating with this range's step
+     * @throws IllegalArgumentException if the ranges do not overlap
+     */
+    public LongRange intersection(final LongRange otherRange) {
+        return new LongRange(Math.max(min, otherRange.min), Math.min(max, otherRange.max), step);
+    }
+
+    /**
+     * @param otherRange the range to combine with
+     * @return the smallest range covering both ranges, iterating with this range's step
+     */
+    public LongRange union(final LongRange otherRange) {
+        return new LongRange(Math.min(min, otherRange.min), Math.max(max, otherRange.max), step);
+    }
+
+    //iterable
+
+    public PrimitiveIterator.OfLong iterator() { return new LongRangeIterator(); }
+
+    public Spliterator.OfLong spliterator() { return new LongRangeSpliterator(min, lastElement()); }
+
+    public LongStream stream() { return StreamSupport.longStream(spliterator(), false); }
+
+    public LongStream parallelStream() { return StreamSupport.longStream(spliterator(), true); }
+
+    private long lastElement() { return min + Long.divideUnsigned(max - min, step) * step; }
+
+    //object
+
+    @Override
+    public boolean equals(final Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+
+        final LongRange range = (LongRange) o;
+
+        return min == range.min && max == range.max && step == range.step;
+    }
+
+    @Override
+    public int hashCode() {
+        int result = (int) (min ^ (min >>> 32));
+        result = 31 * result + (int) (max ^ (max >>> 32));
+        result = 31 * result + (int) (step ^ (step >>> 32));
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        final StringBuilder sb = new StringBuilder();
+        sb.append("LongRange");
+        sb.append("{min=").append(min);
+        sb.append(", max=").append(max);
+        sb.append(", step=").append(step);
+        sb.append('}');
+        return sb.toString();
+    }
+
+    //bean
+    public long getMin() { return min; }
+
+    public long getMax() { return max; }
+
+    public long getStep() { return step; }
+
+    private class LongRangeIterator implements PrimitiveIterator.OfLong {
+        private long current = min;
+        private boolean done = false;
+
+        public long nextLong() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+
+            final long result = current;
+            //compare unsigned so stepping up to Long.MAX_VALUE cannot overflow the cursor
+            if (Long.compareUnsigned(max - current, step) < 0) {
+                done = true;
+            } else {
+                current += step;
+            }
+            return result;
+        }
+
+        public boolean hasNext() { return !done; }
+
+        public void remove() { throw new UnsupportedOperationException(); }
+    }
+
+    /**
+     * Walks the elements from <code>first</code> to <code>last</code>, inclusive. Distances are compared unsigned,
+     * since a range may span more than <code>Long.MAX_VALUE</code>.
+     */
+    private class LongRangeSpliterator implements Spliterator.OfLong {
+        private long first;
+        private final long last;
+        private boolean done = false;
+        //false when there are more elements than estimateSize can report
+        private boolean sized;
+
+        LongRangeSpliterator(final long first, final long last) {
+            this.first = first;
+            this.last = last;
+            sized = fitsInLong(first, last);
+        }
+
+        private boolean fitsInLong(final long from, final long to) {
+            final long steps = Long.divideUnsigned(to - from, step);
+            return steps >= 0 && steps != Long.MAX_VALUE;
+        }
+
+        public OfLong trySplit() {
+            final long steps = Long.divideUnsigned(last - first, step);
+            LongRangeSpliterator result = null;
+            if (!done && steps != 0) {
+                //the prefix takes half of the (steps + 1) elements, rounded down
+                final long prefixSteps = (steps >>> 1) + (steps & 1) - 1;
+                final long prefixLast = first + prefixSteps * step;
+                result = new LongRangeSpliterator(first, prefixLast);
+                first = prefixLast + step;
+                sized = fitsInLong(first, last);
+            }
+
+            return result;
+        }
+
+        public boolean tryAdvance(final LongConsumer action) {
+            boolean result = false;
+            if (!done) {
+                action.accept(first);
+                if (first == last) {
+                    done = true;
+                } else {
+                    first += step;
+                }
+                result = true;
+            }
+
+            return result;
+        }
+
+        public long estimateSize() {
+            long result = 0;
+            if (!done) {
+                final long steps = Long.divideUnsigned(last - first, step);
+                result = steps < 0 || steps == Long.MAX_VALUE ? Long.MAX_VALUE : steps + 1;
+            }
+
+            return result;
+        }
+
+        public int characteristics() {
+            return ORDERED | SORTED | DISTINCT | NONNULL | IMMUTABLE | (sized ? SIZED | SUBSIZED : 0);
+        }
+
+        @Override
+        public Comparator<? super Long> getComparator() { return null; }
+    }
+}
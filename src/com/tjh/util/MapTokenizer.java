@@ -0,0 +1,164 @@
+package com.tjh.util;
+
+/**
+ * Reads strings of the form <code>"{key=value, ...}"</code> in a single pass, for {@link Maps#toMap}.
+ * <p/>
+ * Entries are separated by commas or whitespace. Keys run up to the '=' and lose any trailing whitespace; values run up
+ * to the next comma, whitespace or the closing brace. Either may be wrapped in double quotes to include those
+ * characters, and within quotes a backslash includes the character after it literally. A double quote anywhere but the
+ * start of a key or value, and a backslash outside quotes, are ordinary characters, so unquoted values like Windows
+ * paths read as they always have. So is a leading quote that is never closed. Entries without an '=' or with an empty unquoted key or value are skipped. Strings
+ * that aren't wrapped in braces have no entries.
+ */
+final class MapTokenizer {
+    private final CharSequence chars;
+    private final int end;
+    private final StringBuilder token = new StringBuilder();
+    private int position;
+
+    private MapTokenizer(final CharSequence chars) {
+        this.chars = chars;
+        end = chars.length() - 1;
+        position = 1;
+    }
+
+    /**
+     * @param mapString the string to read
+     * @return an upper bound on the number of entries in <code>mapString</code>
+     */
+    static int countEntries(final CharSequence mapString) {
+        int result = 0;
+        if (isMap(mapString)) {
+            for (int i = 1; i < mapString.length() - 1; i++) {
+                if (mapString.charAt(i) == '=') {
+                    result++;
+                }
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * Calls <code>block</code> with the key and value of each entry in <code>mapString</code>, in order
+     *
+     * @param mapString the string to read
+     * @param block     called for each entry
+     */
+    static void eachEntry(final CharSequence mapString, final Block2<String, String, ?> block) {
+        if (isMap(mapString)) {
+            new MapTokenizer(mapString).eachEntry(block);
+        }
+    }
+
+    private static boolean isMap(final CharSequence mapString) {
+        return mapString.length() > 1 && mapString.charAt(0) == '{' && mapString.charAt(mapString.length() - 1) == '}';
+    }
+
+    private void eachEntry(final Block2<String, String, ?> block) {
+        while (skipSeparators() < end) {
+            final String key = readKey();
+            if (position < end && chars.charAt(position) == '=') {
+                position++;
+                skipWhitespace();
+                final String value = readValue();
+                if (key != null && value != null) {
+                    block.invoke(key, value);
+                }
+            }
+        }
+    }
+
+    /**
+     * @return the key, or null if it is empty and unquoted
+     */
+    private String readKey() {
+        token.setLength(0);
+        boolean quoted = false;
+        int length = 0;
+        while (position < end) {
+            final char c = chars.charAt(position);
+            if (c == '=' || c == ',') {
+                break;
+            } else if (c == '"' && !quoted && token.length() == 0 && readQuoted()) {
+                quoted = true;
+                length = token.length();
+            } else {
+                token.append(c);
+                position++;
+                if (!Character.isWhitespace(c)) {
+                    length = token.length();
+                }
+            }
+        }
+        token.setLength(length);
+
+        return quoted || length > 0 ? token.toString() : null;
+    }
+
+    /**
+     * @return the value, or null if it is empty and unquoted
+     */
+    private String readValue() {
+        token.setLength(0);
+        boolean quoted = false;
+        while (position < end) {
+            final char c = chars.charAt(position);
+            if (c == ',' || Character.isWhitespace(c)) {
+                break;
+            } else if (c == '"' && !quoted && token.length() == 0 && readQuoted()) {
+                quoted = true;
+            } else {
+                token.append(c);
+                position++;
+            }
+        }
+
+        return quoted || token.length() > 0 ? token.toString() : null;
+    }
+
+    /**
+     * Reads the quoted text starting at the current position into the token
+     *
+     * @return true if the quote was closed, false to leave the token and position alone so the quote is read as an
+     *         ordinary character
+     */
+    private boolean readQuoted() {
+        final int start = position++;
+        while (position < end && chars.charAt(position) != '"') {
+            if (chars.charAt(position) == '\\') {
+                readEscaped();
+            } else {
+                token.append(chars.charAt(position++));
+            }
+        }
+        if (position >= end) {
+            token.setLength(0);
+            position = start;
+            return false;
+        }
+        position++;
+
+        return true;
+    }
+
+    private void readEscaped() {
+        if (++position < end) {
+            token.append(chars.charAt(position++));
+        }
+    }
+
+    private int skipSeparators() {
+        while (position < end && (chars.charAt(position) == ',' || Character.isWhitespace(chars.charAt(position)))) {
+            position++;
+        }
+
+        return position;
+    }
+
+    private void skipWhitespace() {
+        while (position < end && Character.isWhitespace(chars.charAt(position))) {
+            position++;
+        }
+    }
+}
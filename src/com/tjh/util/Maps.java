@@ -3,21 +3,22 @@ package com.tjh.util;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
-import java.util.Collections;
 import java.util.EnumMap;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.util.RandomAccess;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.BiFunction;
 
 /**
  * User: thart Date: Aug 23, 2008 Time: 3:27:46 PM
  */
 @SuppressWarnings({"UnusedDeclaration"})
 public class Maps {
-    private static final Pattern MAP_PATTERN = Pattern.compile("^\\{\\s*(.*)}$");
-    private static final Pattern ENTRY_PATTERN = Pattern.compile("([^=]+)=([^,\\s]+),?\\s*");
+    private static final int MIN_INDEX_CHUNK = 1 << 10;
 
     /**
      * Convenience method for creating maps. <b>Note that you lose all type safety beyond the first two parameters.</b>
@@ -41,7 +42,7 @@ public class Maps {
      * @return a Map initialized with the keys and values passed in
      */
     public static <K, V> Map<K, V> asMap(final K key1, final V value1, final Object... others) {
-        final Map<K, V> result = new HashMap<K, V>((others.length + 1) / 2);
+        final Map<K, V> result = new HashMap<K, V>(capacityFor(others.length / 2 + 1));
         return fillMap(result, key1, value1, others);
     }
 
@@ -93,7 +94,7 @@ public class Maps {
         if (keyType.isEnum()) {
             result = new EnumMap(keyType);
         } else {
-            result = new HashMap<K, V>(keysAndValues.length / 2);
+            result = new HashMap<K, V>(capacityFor(keysAndValues.length / 2));
         }
 
         for (int i = 0; i < keysAndValues.length; i++) {
@@ -106,22 +107,26 @@ public class Maps {
 
     /**
      * Takes a string of the form <code>"{key=value, ...}"</code> and coverts it to a map
+     * <p/>
+     * Keys and values may be wrapped in double quotes to include commas, whitespace or braces. Within quotes, a
+     * backslash includes the character after it literally. A quote that is never closed is read as part of the text.
      *
      * @param mapString The String to convert
      * @return A Map
      */
-    public static Map<String, String> toMap(final String mapString) {
-        return toMap(mapString, new Block2<String, String, Map.Entry<String, String>>() {
-            public Map.Entry<String, String> invoke(final String key, final String value) {
-                return new Map.Entry<String, String>() {
-                    public String getKey() { return key; }
-
-                    public String getValue() { return value; }
+    public static Map<String, String> toMap(final String mapString) { return toMap((CharSequence) mapString); }
 
-                    public String setValue(final String value) { throw new UnsupportedOperationException(); }
-                };
-            }
+    /**
+     * @see #toMap(String)
+     */
+    public static Map<String, String> toMap(final CharSequence mapString) {
+        final Map<String, String> result =
+                new HashMap<String, String>(capacityFor(MapTokenizer.countEntries(mapString)));
+        MapTokenizer.eachEntry(mapString, new Block2<String, String, Object>() {
+            public Object invoke(final String key, final String value) { return result.put(key, value); }
         });
+
+        return result;
     }
 
     /**
@@ -135,23 +140,59 @@ public class Maps {
      * @param <K>       Key type for the result Map
      * @param <V>       Value type for the result map
      * @return A Map populated with the results of the calls to <code>converter</code>
+     * @see #toMap(String)
      */
     public static <K, V> Map<K, V> toMap(final String mapString,
             final Block2<String, String, ? extends Map.Entry<K, V>> converter) {
-        final Map<K, V> result = new HashMap<K, V>();
+        return toMap((CharSequence) mapString, converter);
+    }
 
-        final Matcher mapMatcher = MAP_PATTERN.matcher(mapString);
-        if (mapMatcher.matches()) {
-            final Matcher entryMatcher = ENTRY_PATTERN.matcher(mapMatcher.group(1));
-            while (entryMatcher.find()) {
-                final Map.Entry<K, V> entry = converter.invoke(entryMatcher.group(1), entryMatcher.group(2));
-                result.put(entry.getKey(), entry.getValue());
+    /**
+     * @see #toMap(String, Block2)
+     */
+    public static <K, V> Map<K, V> toMap(final CharSequence mapString,
+            final Block2<String, String, ? extends Map.Entry<K, V>> converter) {
+        final Map<K, V> result = new HashMap<K, V>(capacityFor(MapTokenizer.countEntries(mapString)));
+        MapTokenizer.eachEntry(mapString, new Block2<String, String, Object>() {
+            public Object invoke(final String key, final String value) {
+                final Map.Entry<K, V> entry = converter.invoke(key, value);
+                return result.put(entry.getKey(), entry.getValue());
             }
-        }
+        });
 
         return result;
     }
 
+    /**
+     * Takes a string of the form "{key=value, ...}" and converts it to a map, converting each key and value
+     * separately, so no Map.Entry is created for each entry
+     *
+     * @param mapString      The string to convert
+     * @param keyConverter   converts each key
+     * @param valueConverter converts each value
+     * @param <K>            Key type for the result Map
+     * @param <V>            Value type for the result map
+     * @return A Map populated with the converted keys and values
+     * @see #toMap(String)
+     */
+    public static <K, V> Map<K, V> toMap(final CharSequence mapString, final Block<String, ? extends K> keyConverter,
+            final Block<String, ? extends V> valueConverter) {
+        final Map<K, V> result = new HashMap<K, V>(capacityFor(MapTokenizer.countEntries(mapString)));
+        MapTokenizer.eachEntry(mapString, new Block2<String, String, Object>() {
+            public Object invoke(final String key, final String value) {
+                return result.put(keyConverter.invoke(key), valueConverter.invoke(value));
+            }
+        });
+
+        return result;
+    }
+
+    /**
+     * @param size the number of entries a map will hold
+     * @return the initial capacity a HashMap needs to hold <code>size</code> entries without rehashing
+     */
+    static int capacityFor(final int size) { return size < 3 ? size + 1 : (int) (size / 0.75f + 1); }
+
     /**
      * Returns all of the keys in <code>map</code> that are associated with <code>value</code>
      *
@@ -174,18 +215,19 @@ public class Maps {
     }
 
     /**
-     * Like {@link #asMap(Object, Object, Object...)}, but returns an unmodifiable map
+     * Like {@link #asMap(Object, Object, Object...)}, but returns a compact, immutable map
      *
      * @param key1   The first key
      * @param value1 The first value
      * @param others subsequent keys and values
      * @param <K>    The key type
      * @param <V>    the value type
-     * @return an unmodifiable map initialized with the keys and values passed in
+     * @return an immutable map initialized with the keys and values passed in
      * @see #asMap(Object, Object, Object...)
+     * @see #toConstantMap(Map)
      */
     public static <K, V> Map<K, V> asConstantMap(final K key1, final V value1, final Object... others) {
-        return Collections.unmodifiableMap(asMap(key1, value1, others));
+        return toConstantMap(asMap(key1, value1, others));
     }
 
     /**
@@ -196,12 +238,30 @@ public class Maps {
      * @param keysAndValues keys and values for the map
      * @param <K>           The key type
      * @param <V>           the value type
-     * @return an unmodifiable map initialized with the keys and values passed in
+     * @return an immutable map initialized with the keys and values passed in
      * @see #asMap(Class, Class, Object...)
+     * @see #toConstantMap(Map)
      */
     public static <K, V> Map<K, V> asConstantMap(final Class<? extends K> keyType, final Class<? extends V> valueType,
             final Object... keysAndValues) {
-        return Collections.unmodifiableMap(asMap(keyType, valueType, keysAndValues));
+        return toConstantMap(asMap(keyType, valueType, keysAndValues));
+    }
+
+    /**
+     * Returns an immutable copy of <code>map</code>, laid out for fast lookups. Maps with enum keys are copied into an
+     * EnumMap. Other keys are stored in a single open-addressed array, hashed so that each key usually has a slot to
+     * itself. The copy iterates in the same order as <code>map</code>.
+     * <p/>
+     * Building the copy costs more than building a HashMap, so this is meant for lookup tables built once and read
+     * often. Keys must not change their hash codes.
+     *
+     * @param map the map to copy
+     * @param <K> The key type
+     * @param <V> the value type
+     * @return an immutable copy of <code>map</code>
+     */
+    public static <K, V> Map<K, V> toConstantMap(final Map<? extends K, ? extends V> map) {
+        return ConstantMap.copyOf(map);
     }
 
     /**
@@ -214,10 +274,23 @@ public class Maps {
      * @param keypath The keypath to return the value for
      * @param <V>     The type of the return value
      * @return The value at <code>keypath</code>
+     * @see KeyPath
      */
-    @SuppressWarnings({"RedundantTypeArguments"})
+    @SuppressWarnings({"unchecked"})
     public static <V> V valueFor(final Map<String, ?> map, final String keypath) {
-        return Maps.<String, V>valueFor(map, keypath.split("\\."));
+        final int end = keypathEnd(keypath);
+        Object result = map;
+        if (end > 0 || keypath.isEmpty()) {
+            int start = 0;
+            int dot;
+            while ((dot = keypath.indexOf('.', start)) >= 0 && dot < end) {
+                result = ((Map<String, ?>) result).get(keypath.substring(start, dot));
+                start = dot + 1;
+            }
+            result = ((Map<String, ?>) result).get(keypath.substring(start, end));
+        }
+
+        return (V) result;
     }
 
     /**
@@ -234,7 +307,60 @@ public class Maps {
      */
     @SuppressWarnings({"unchecked"})
     public static <V> V putValueFor(Map<String, ?> map, final String keypath, final V value) {
-        return putValueFor(map, value, keypath.split("\\."));
+        final int end = keypathEnd(keypath);
+        if (end == 0 && !keypath.isEmpty()) {
+            throw new IllegalArgumentException("keypath has no keys: " + keypath);
+        }
+
+        int start = 0;
+        int dot;
+        while ((dot = keypath.indexOf('.', start)) >= 0 && dot < end) {
+            map = (Map<String, ?>) map.get(keypath.substring(start, dot));
+            start = dot + 1;
+        }
+
+        return ((Map<String, V>) map).put(keypath.substring(start, end), value);
+    }
+
+    /**
+     * Like {@link #putValueFor(Map, String, Object)}, optionally creating missing intermediate maps
+     *
+     * @param map           the map to navigate
+     * @param keypath       the keypath representing the value to be replaced
+     * @param value         the new value
+     * @param createMissing true to put a new HashMap in place of each missing intermediate map
+     * @param <V>           the value type
+     * @return the old value at <code>keypath</code>
+     * @see KeyPath#put(Map, Object, boolean)
+     */
+    public static <V> V putValueFor(final Map<String, ?> map, final String keypath, final V value,
+            final boolean createMissing) {
+        return KeyPath.compile(keypath).put(map, value, createMissing);
+    }
+
+    /**
+     * Convenience method for navigating nested maps with a compiled keypath
+     *
+     * @param map     The map to navigate
+     * @param keyPath The keypath to return the value for
+     * @param <V>     The type of the return value
+     * @return The value at <code>keyPath</code>
+     */
+    public static <V> V valueFor(final Map<?, ?> map, final KeyPath keyPath) { return keyPath.<V>get(map); }
+
+    /**
+     * Keypaths are walked in place rather than split, but trailing dots are still ignored, as
+     * <code>String.split</code> always has
+     *
+     * @return the length of <code>keypath</code> without trailing dots
+     */
+    private static int keypathEnd(final String keypath) {
+        int result = keypath.length();
+        while (result > 0 && keypath.charAt(result - 1) == '.') {
+            result--;
+        }
+
+        return result;
     }
 
     /**
@@ -478,4 +604,198 @@ public class Maps {
 
         return target;
     }
+
+    /**
+     * Like {@link #index(Collection, Block)}, but reduces the values for each key with <code>reducer</code> rather
+     * than collecting them, so only one result per key is kept.
+     *
+     * @param collection The collection to index
+     * @param block      a block of code to invoke for each element of collection
+     * @param reducer    reduces the values for each key
+     * @param <K>        the type to index on
+     * @param <V>        the type of elements to be indexed
+     * @param <R>        the type of the reduced results
+     * @return A map of each key to the reduced result of its values
+     * @see Reducers
+     */
+    public static <K, V, R> Map<K, R> index(final Collection<? extends V> collection,
+            final Block<? super V, ? extends K> block, final Reducer<? super V, R> reducer) {
+        return index(collection, new HashMap<K, R>(), block, reducer);
+    }
+
+    /**
+     * @param collection The collection to index
+     * @param target     The Map to store the results in. Existing results are reduced further
+     * @param block      a block of code to invoke for each element of collection
+     * @param reducer    reduces the values for each key
+     * @param <K>        the type to index on
+     * @param <V>        the type of elements to be indexed
+     * @param <R>        the type of the reduced results
+     * @return <code>target</code>
+     * @see #index(Collection, Block, Reducer)
+     */
+    public static <K, V, R> Map<K, R> index(final Collection<? extends V> collection, final Map<K, R> target,
+            final Block<? super V, ? extends K> block, final Reducer<? super V, R> reducer) {
+        for (final V v : collection) {
+            final K key = block.invoke(v);
+            R result = target.get(key);
+            if (result == null && !target.containsKey(key)) {
+                result = reducer.initial();
+            }
+            target.put(key, reducer.reduce(result, v));
+        }
+
+        return target;
+    }
+
+    /**
+     * Like {@link #index(Collection, Block)}, but indexes <code>collection</code> in parallel on <code>pool</code>,
+     * so <code>block</code> must be thread-safe. The values for each key stay in the order of
+     * <code>collection</code>.
+     *
+     * @see #index(ForkJoinPool, Collection, Block, Reducer)
+     */
+    public static <K, V> Map<K, Collection<V>> index(final ForkJoinPool pool, final Collection<? extends V> collection,
+            final Block<? super V, ? extends K> block) {
+        return index(pool, collection, block, Reducers.<V>toList());
+    }
+
+    /**
+     * Indexes and reduces <code>collection</code> in parallel on <code>pool</code>. The collection is split into
+     * chunks, each chunk is indexed into a map of its own, and the maps are combined pairwise with
+     * {@link Reducer#combine}, earlier chunks on the left. <code>block</code> must be thread-safe.
+     *
+     * @param pool       the pool to index on
+     * @param collection The collection to index
+     * @param block      a block of code to invoke for each element of collection
+     * @param reducer    reduces the values for each key
+     * @param <K>        the type to index on
+     * @param <V>        the type of elements to be indexed
+     * @param <R>        the type of the reduced results
+     * @return A map of each key to the reduced result of its values
+     * @see #index(Collection, Block, Reducer)
+     */
+    public static <K, V, R> Map<K, R> index(final ForkJoinPool pool, final Collection<? extends V> collection,
+            final Block<? super V, ? extends K> block, final Reducer<? super V, R> reducer) {
+        return pool.invoke(new IndexTask<K, V, R>(randomAccess(collection), 0, collection.size(),
+                chunkSize(pool, collection), block, reducer, null));
+    }
+
+    /**
+     * Like {@link #index(ForkJoinPool, Collection, Block, Reducer)}, but each chunk is combined straight into
+     * <code>target</code> when it is done, rather than with the other chunks. Chunks finish in no particular order, so
+     * <code>reducer</code> shouldn't depend on the order of values.
+     * <p/>
+     * Results are combined with {@link ConcurrentMap#merge}, which a ConcurrentHashMap does atomically. Since a
+     * ConcurrentMap can't hold null, values that <code>block</code> maps to a null key, and keys whose values reduce to
+     * null, are left out. Results already in <code>target</code> may be read by other threads while indexing runs, so
+     * <code>reducer</code> shouldn't combine mutable results in place.
+     *
+     * @param pool       the pool to index on
+     * @param collection The collection to index
+     * @param target     The Map to store the results in. Existing results are combined with the new ones
+     * @param block      a block of code to invoke for each element of collection
+     * @param reducer    reduces the values for each key
+     * @param <K>        the type to index on
+     * @param <V>        the type of elements to be indexed
+     * @param <R>        the type of the reduced results
+     * @return <code>target</code>
+     */
+    public static <K, V, R> ConcurrentMap<K, R> index(final ForkJoinPool pool,
+            final Collection<? extends V> collection, final ConcurrentMap<K, R> target,
+            final Block<? super V, ? extends K> block, final Reducer<? super V, R> reducer) {
+        pool.invoke(new IndexTask<K, V, R>(randomAccess(collection), 0, collection.size(),
+                chunkSize(pool, collection), block, reducer, target));
+        return target;
+    }
+
+    @SuppressWarnings({"unchecked"})
+    private static <V> List<? extends V> randomAccess(final Collection<? extends V> collection) {
+        return collection instanceof List && collection instanceof RandomAccess
+                ? (List<? extends V>) collection
+                : new ArrayList<V>(collection);
+    }
+
+    private static int chunkSize(final ForkJoinPool pool, final Collection<?> collection) {
+        //a few chunks per thread, so threads that finish early can take on more
+        return Math.max(MIN_INDEX_CHUNK, collection.size() / (pool.getParallelism() * 4));
+    }
+
+    private static class IndexTask<K, V, R> extends RecursiveTask<Map<K, R>> {
+        private static final long serialVersionUID = 1L;
+
+        private final List<? extends V> values;
+        private final int from;
+        private final int to;
+        private final int chunkSize;
+        private final Block<? super V, ? extends K> block;
+        private final Reducer<? super V, R> reducer;
+        private final ConcurrentMap<K, R> target;
+
+        IndexTask(final List<? extends V> values, final int from, final int to, final int chunkSize,
+                final Block<? super V, ? extends K> block, final Reducer<? super V, R> reducer,
+                final ConcurrentMap<K, R> target) {
+            this.values = values;
+            this.from = from;
+            this.to = to;
+            this.chunkSize = chunkSize;
+            this.block = block;
+            this.reducer = reducer;
+            this.target = target;
+        }
+
+        @Override
+        protected Map<K, R> compute() {
+            if (to - from <= chunkSize) {
+                final Map<K, R> result = index(values.subList(from, to), new HashMap<K, R>(), block, reducer);
+                if (target != null) {
+                    mergeInto(result);
+                }
+                return result;
+            }
+
+            final int middle = (from + to) >>> 1;
+            final IndexTask<K, V, R> left = new IndexTask<K, V, R>(values, from, middle, chunkSize, block, reducer,
+                    target);
+            left.fork();
+            final Map<K, R> right = new IndexTask<K, V, R>(values, middle, to, chunkSize, block, reducer, target)
+                    .compute();
+            final Map<K, R> leftResult = left.join();
+
+            return target == null ? combine(leftResult, right) : null;
+        }
+
+        /**
+         * @return the larger of <code>left</code> and <code>right</code>, with the smaller one combined into it
+         */
+        private Map<K, R> combine(final Map<K, R> left, final Map<K, R> right) {
+            final boolean intoLeft = left.size() >= right.size();
+            final Map<K, R> result = intoLeft ? left : right;
+            for (final Map.Entry<K, R> entry : (intoLeft ? right : left).entrySet()) {
+                final K key = entry.getKey();
+                final R existing = result.get(key);
+                if (existing == null && !result.containsKey(key)) {
+                    result.put(key, entry.getValue());
+                } else {
+                    result.put(key, intoLeft
+                            ? reducer.combine(existing, entry.getValue())
+                            : reducer.combine(entry.getValue(), existing));
+                }
+            }
+
+            return result;
+        }
+
+        private void mergeInto(final Map<K, R> chunk) {
+            final BiFunction<R, R, R> combiner = new BiFunction<R, R, R>() {
+                public R apply(final R existing, final R value) { return reducer.combine(existing, value); }
+            };
+            for (final Map.Entry<K, R> entry : chunk.entrySet()) {
+                //ConcurrentMap can't hold nulls, and a block or a reducer like first() may legitimately produce one
+                if (entry.getKey() != null && entry.getValue() != null) {
+                    target.merge(entry.getKey(), entry.getValue(), combiner);
+                }
+            }
+        }
+    }
 }
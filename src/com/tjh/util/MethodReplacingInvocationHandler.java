@@ -1,23 +1,70 @@
 package com.tjh.util;
 
+import java.lang.invoke.MethodHandle;
 import java.lang.reflect.InvocationHandler;
 import java.lang.reflect.Method;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.Map;
+import java.util.Set;
 
 public class MethodReplacingInvocationHandler<T> implements InvocationHandler {
-    private Map<Method, ? extends ThrowingBlock2<T, Object[], Object, ? extends Throwable>> replacements;
-    private Object target;
+    private final Map<Method, ? extends ThrowingBlock2<T, Object[], Object, ? extends Throwable>> replacements;
+    private final Object target;
+    private final Map<Method, MethodHandle> handles;
 
     public MethodReplacingInvocationHandler(final T target,
                                             final Map<Method, ? extends ThrowingBlock2<T, Object[], Object, ? extends Throwable>>
                                                     replacements) {
         this.target = target;
         this.replacements = replacements;
+        handles = Collections.emptyMap();
+    }
+
+    /**
+     * Binds every method of <code>declaredInterface</code> that isn't replaced to <code>target</code> as a
+     * MethodHandle up front, instead of calling it reflectively each time. Exceptions thrown by <code>target</code>
+     * reach the caller unwrapped.
+     *
+     * @param declaredInterface the interface the proxy will implement
+     * @param target            the object to forward methods that aren't replaced to
+     * @param replacements      the replacement blocks, keyed by method
+     */
+    public MethodReplacingInvocationHandler(final Class<?> declaredInterface, final T target,
+                                            final Map<Method, ? extends ThrowingBlock2<T, Object[], Object, ? extends Throwable>>
+                                                    replacements) {
+        this.target = target;
+        this.replacements = replacements;
+        handles = bindAll(declaredInterface, target, replacements.keySet());
+    }
+
+    private static Map<Method, MethodHandle> bindAll(final Class<?> declaredInterface, final Object target,
+                                                     final Set<Method> replaced) {
+        final Map<Method, MethodHandle> result = new HashMap<Method, MethodHandle>();
+        try {
+            for (final Method method : declaredInterface.getMethods()) {
+                if (!replaced.contains(method)) {
+                    result.put(method, Methods.bind(method, target));
+                }
+            }
+        }
+        catch (NoSuchMethodException e) { throw new RuntimeException(e); }
+        catch (IllegalAccessException e) { throw new RuntimeException(e); }
+
+        return result;
     }
 
     public Object invoke(final Object proxy, final Method method, final Object[] args) throws Throwable {
         final ThrowingBlock2<T, Object[], Object, ? extends Throwable> replacement = replacements.get(method);
-        //noinspection unchecked
-        return replacement == null ? method.invoke(target, args) : replacement.invoke((T) proxy, args);
+        final Object result;
+        if (replacement != null) {
+            //noinspection unchecked
+            result = replacement.invoke((T) proxy, args);
+        } else {
+            final MethodHandle handle = handles.get(method);
+            result = handle == null ? method.invoke(target, args) : (Object) handle.invokeExact(args);
+        }
+
+        return result;
     }
 }
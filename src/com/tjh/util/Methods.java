@@ -2,6 +2,9 @@ package com.tjh.util;
 
 import static com.tjh.util.Types.convert;
 
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
 import java.lang.reflect.Method;
 import java.lang.reflect.InvocationTargetException;
 
@@ -16,4 +19,43 @@ public class Methods {
         final int numOfArgs = method.getParameterTypes().length;
         return method.isVarArgs() ? args.length >= numOfArgs - 1 : args.length == numOfArgs;
     }
+
+    /**
+     * Binds <code>method</code> to <code>target</code> as a MethodHandle of type <code>(Object[])Object</code>, so it
+     * can be called with <code>invokeExact</code> and the same argument array reflection would use. Access is checked
+     * once here rather than on every call, and exceptions thrown by the method propagate unwrapped. Access checks are
+     * only suppressed if the method can't be reached otherwise, such as a public method of a non-public class.
+     *
+     * @param method the method to bind. If <code>target</code> doesn't extend the method's declaring class, the
+     *               method with the same signature on <code>target</code>'s class is bound instead
+     * @param target the receiver for every call
+     * @return a handle that spreads its argument array into a call to <code>method</code> on <code>target</code>
+     * @throws NoSuchMethodException if <code>target</code> has no such method
+     * @throws IllegalAccessException if the method can't be made accessible
+     */
+    public static MethodHandle bind(final Method method, final Object target)
+            throws NoSuchMethodException, IllegalAccessException {
+        final Method targetMethod = method.getDeclaringClass().isInstance(target)
+                ? method : target.getClass().getMethod(method.getName(), method.getParameterTypes());
+
+        return unreflect(targetMethod)
+                .asFixedArity()
+                .bindTo(target)
+                .asSpreader(Object[].class, targetMethod.getParameterTypes().length)
+                .asType(MethodType.methodType(Object.class, Object[].class));
+    }
+
+    private static MethodHandle unreflect(final Method method) throws IllegalAccessException {
+        try {
+            return MethodHandles.lookup().unreflect(method);
+        } catch (IllegalAccessException e) {
+            try {
+                method.setAccessible(true);
+            } catch (RuntimeException denied) {
+                //the module system or a security manager refused, so report the original failure
+                throw e;
+            }
+            return MethodHandles.lookup().unreflect(method);
+        }
+    }
 }
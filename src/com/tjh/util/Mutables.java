@@ -6,7 +6,7 @@ import java.util.Map;
 
 public class Mutables {
     private static final Map<Class<? extends Comparable>, Class<? extends Mutable>> mutableMap =
-            Maps.<Class<? extends Comparable>, Class<? extends Mutable>>asMap(
+            Maps.<Class<? extends Comparable>, Class<? extends Mutable>>asConstantMap(
                     Integer.class, MutableInteger.class,
                     Long.class, MutableLong.class);
 
@@ -1,41 +1,163 @@
 package com.tjh.util;
 
+import net.sf.cglib.proxy.Callback;
+import net.sf.cglib.proxy.CallbackFilter;
 import net.sf.cglib.proxy.Enhancer;
+import net.sf.cglib.proxy.FixedValue;
 import net.sf.cglib.proxy.InvocationHandler;
 
 import java.lang.reflect.Method;
 import java.lang.reflect.Modifier;
-import java.util.HashMap;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 
 public final class NullObjectFactory {
+    private static final Map<Class, Object> primitiveMap = Maps.<Class, Object>asConstantMap(
+        byte.class, (byte)0,
+        short.class, (short)0,
+        int.class, 0,
+        long.class, 0L,
+        float.class, 0.0f,
+        double.class, 0.0d,
+        boolean.class, false,
+        char.class, (char)0);
+
     private static final InvocationHandler nullInvocationHandler = new NullInvocationHandler();
-    private static final Map<Class, Object> nullObjectCache = new HashMap<Class, Object>();
 
+    /**
+     * Lives in a ClassValue so cached proxies don't keep their classes from being unloaded. ClassValue may compute
+     * more than one holder under contention, but only one is ever published, and the holder generates its proxy once.
+     */
+    private static final ClassValue<NullObjectHolder> nullObjectCache = new ClassValue<NullObjectHolder>() {
+        @Override
+        protected NullObjectHolder computeValue(final Class<?> type) { return new NullObjectHolder(type); }
+    };
+
+    /**
+     * Returns a shared null object for <code>someClass</code>. Safe to call from multiple threads: the proxy for each
+     * class is generated exactly once, and later calls read it without locking.
+     * <p/>
+     * The return value of every method is decided when the proxy class is generated, so calls on the null object
+     * return a precomputed default without inspecting the method being called.
+     *
+     * @param someClass The class to create a null object for
+     * @param <T> The type of the null object
+     * @return a null object, or null if <code>someClass</code> is final
+     */
     @SuppressWarnings({"unchecked"})
-    public static <T> T nullObject(final Class<T> someClass) {
-        T result = null;
-        if(nullObjectCache.keySet().contains(someClass)){
-            result = (T)nullObjectCache.get(someClass);
+    public static <T> T nullObject(final Class<T> someClass) { return (T) nullObjectCache.get(someClass).get(); }
+
+    private static Object createNullObject(final Class<?> type) {
+        final Class[] interfaces = {NullObject.class};
+        final List<Method> methods = new ArrayList<Method>();
+        Enhancer.getMethods(type, interfaces, methods);
+
+        final NullCallbackFilter filter = new NullCallbackFilter();
+        for (final Method method : methods) {
+            filter.register(method.getReturnType());
         }
-        else if(!Modifier.isFinal(someClass.getModifiers())){
-            result = (T) Enhancer.create(someClass, new Class[]{NullObject.class}, nullInvocationHandler);
-            nullObjectCache.put(someClass, result);
+
+        return Enhancer.create(type, interfaces, filter, filter.callbacks());
+    }
+
+    private static final class NullObjectHolder {
+        private final Class<?> type;
+        private volatile boolean resolved;
+        private Object nullObject;
+
+        NullObjectHolder(final Class<?> type) { this.type = type; }
+
+        Object get() {
+            if (!resolved) {
+                synchronized (this) {
+                    if (!resolved) {
+                        if (!Modifier.isFinal(type.getModifiers())) {
+                            nullObject = createNullObject(type);
+                        }
+                        //the volatile write publishes nullObject
+                        resolved = true;
+                    }
+                }
+            }
+
+            return nullObject;
         }
-        return result;
     }
 
-    private static final class NullInvocationHandler implements InvocationHandler {
-        private static final Map<Class, Object> primitiveMap = Maps.<Class, Object>asMap(
-            byte.class, (byte)0,
-            short.class, (short)0,
-            int.class, 0,
-            long.class, 0L,
-            float.class, 0.0f,
-            double.class, 0.0d,
-            boolean.class, false,
-            char.class, (char)0);
+    /**
+     * Routes <code>equals(Object)</code> and <code>toString()</code> to dedicated callbacks, and every other method to
+     * a {@link DefaultValue} for its return type. Methods it wasn't told about fall back to
+     * {@link NullInvocationHandler}.
+     */
+    private static final class NullCallbackFilter implements CallbackFilter {
+        private static final int EQUALS = 0;
+        private static final int TO_STRING = 1;
+        private static final int FALLBACK = 2;
+
+        private final Map<Class<?>, Integer> returnTypeIndexes = new LinkedHashMap<Class<?>, Integer>();
+
+        void register(final Class<?> returnType) {
+            if (!returnTypeIndexes.containsKey(returnType)) {
+                returnTypeIndexes.put(returnType, FALLBACK + 1 + returnTypeIndexes.size());
+            }
+        }
+
+        Callback[] callbacks() {
+            final List<Callback> result = new ArrayList<Callback>(FALLBACK + 1 + returnTypeIndexes.size());
+            result.add(new EqualsHandler());
+            result.add(new FixedValue() {
+                public Object loadObject() { return "NullObject"; }
+            });
+            result.add(nullInvocationHandler);
+            for (final Class<?> returnType : returnTypeIndexes.keySet()) {
+                result.add(new DefaultValue(returnType));
+            }
+
+            return result.toArray(new Callback[result.size()]);
+        }
+
+        public int accept(final Method method) {
+            final int parameterCount = method.getParameterTypes().length;
+            final int result;
+            if ("equals".equals(method.getName()) && parameterCount == 1) {
+                result = EQUALS;
+            } else if ("toString".equals(method.getName()) && parameterCount == 0) {
+                result = TO_STRING;
+            } else {
+                final Integer index = returnTypeIndexes.get(method.getReturnType());
+                result = index == null ? FALLBACK : index;
+            }
+
+            return result;
+        }
+    }
 
+    /**
+     * Returns the default value for a return type: zero for primitives, the (lazily generated) null object for other
+     * types, and null for final classes and <code>void</code>.
+     */
+    private static final class DefaultValue implements FixedValue {
+        private final Object primitiveValue;
+        private final NullObjectHolder holder;
+
+        DefaultValue(final Class<?> returnType) {
+            primitiveValue = primitiveMap.get(returnType);
+            //resolving the holder is deferred to the first call, since a class may return its own type
+            holder = returnType.isPrimitive() ? null : nullObjectCache.get(returnType);
+        }
+
+        public Object loadObject() { return holder == null ? primitiveValue : holder.get(); }
+    }
+
+    private static final class EqualsHandler implements InvocationHandler {
+        public Object invoke(final Object target, final Method method, final Object[] arguments) {
+            return arguments[0] == null || arguments[0] instanceof NullObject;
+        }
+    }
+
+    private static final class NullInvocationHandler implements InvocationHandler {
         public Object invoke(final Object target, final Method method, final Object[] arguments) throws Throwable {
             Object result;
             if ("equals".equals(method.getName())) {
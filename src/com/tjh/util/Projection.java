@@ -0,0 +1,188 @@
+package com.tjh.util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Reads many keypaths out of nested maps at once. The keypaths are merged into a prefix tree when the projection is
+ * built, so projecting a map visits each of its nested maps at most once, however many keypaths pass through it.
+ * <p/>
+ * Unlike {@link Maps#valueFor(Map, String)}, a keypath that runs into a missing or non-map intermediate value yields
+ * null rather than throwing, since documents are expected to vary.
+ * <p/>
+ * Projections are immutable, so one can be built ahead of time and shared between threads.
+ */
+public final class Projection {
+    private final List<KeyPath> keyPaths;
+    private final Node root = new Node(null);
+
+    private Projection(final List<KeyPath> keyPaths) {
+        this.keyPaths = Collections.unmodifiableList(new ArrayList<KeyPath>(keyPaths));
+        for (int i = 0; i < keyPaths.size(); i++) {
+            Node node = root;
+            for (final Object key : keyPaths.get(i).keys()) {
+                node = node.child(key);
+            }
+            node.addIndex(i);
+        }
+        root.seal();
+    }
+
+    /**
+     * @param keypaths dotted keypaths, as accepted by {@link KeyPath#compile(String)}
+     * @return a projection of <code>keypaths</code>
+     */
+    public static Projection of(final String... keypaths) {
+        final List<KeyPath> result = new ArrayList<KeyPath>(keypaths.length);
+        for (final String keypath : keypaths) {
+            result.add(KeyPath.compile(keypath));
+        }
+
+        return new Projection(result);
+    }
+
+    /**
+     * @param keyPaths the keypaths to project
+     * @return a projection of <code>keyPaths</code>
+     */
+    public static Projection of(final List<KeyPath> keyPaths) { return new Projection(keyPaths); }
+
+    /**
+     * @return the keypaths, in the order their values are projected
+     */
+    public List<KeyPath> getKeyPaths() { return keyPaths; }
+
+    /**
+     * @param map the map to read
+     * @return the value at each keypath, in the order the keypaths were given
+     */
+    public Object[] project(final Map<?, ?> map) { return project(map, new Object[keyPaths.size()]); }
+
+    /**
+     * Fills <code>values</code> with the value at each keypath, so one array can be reused for many maps. Every element
+     * is overwritten, with null where the keypath isn't found.
+     *
+     * @param map    the map to read
+     * @param values the array to fill. It must be at least as long as the number of keypaths
+     * @return <code>values</code>
+     */
+    public Object[] project(final Map<?, ?> map, final Object[] values) {
+        if (values.length < keyPaths.size()) {
+            throw new IllegalArgumentException("Need room for " + keyPaths.size() + " values, not " + values.length);
+        }
+
+        Arrays.fill(values, 0, keyPaths.size(), null);
+        root.setValue(values, map);
+        root.project(map, values);
+        return values;
+    }
+
+    /**
+     * Copies the value at each keypath from <code>map</code> to the same keypath in <code>target</code>, creating
+     * intermediate maps in <code>target</code> as needed, as
+     * {@link Maps#putValueFor(Map, String, Object, boolean)} does. Keypaths that aren't found, or whose values are
+     * null, are left out. Map values are copied, along with any maps nested in them, so <code>target</code> shares no
+     * maps with <code>map</code>; other values are shared.
+     *
+     * @param map    the map to read
+     * @param target the map to fill
+     * @param <M>    the type of <code>target</code>
+     * @return <code>target</code>
+     */
+    public <M extends Map<?, ?>> M projectInto(final Map<?, ?> map, final M target) {
+        root.projectInto(map, target);
+        return target;
+    }
+
+    private static final class Node {
+        private static final Node[] LEAF = new Node[0];
+        private static final int[] NO_INDEXES = new int[0];
+
+        private final Object key;
+        private List<Node> childList = new ArrayList<Node>();
+        private Node[] children;
+        private int[] indexes = NO_INDEXES;
+
+        Node(final Object key) { this.key = key; }
+
+        Node child(final Object childKey) {
+            for (final Node child : childList) {
+                if (childKey == null ? child.key == null : childKey.equals(child.key)) {
+                    return child;
+                }
+            }
+
+            final Node result = new Node(childKey);
+            childList.add(result);
+            return result;
+        }
+
+        void addIndex(final int index) {
+            indexes = Arrays.copyOf(indexes, indexes.length + 1);
+            indexes[indexes.length - 1] = index;
+        }
+
+        void seal() {
+            children = childList.isEmpty() ? LEAF : childList.toArray(new Node[childList.size()]);
+            childList = null;
+            for (final Node child : children) {
+                child.seal();
+            }
+        }
+
+        void setValue(final Object[] values, final Object value) {
+            for (final int index : indexes) {
+                values[index] = value;
+            }
+        }
+
+        void project(final Map<?, ?> map, final Object[] values) {
+            for (final Node child : children) {
+                final Object value = map.get(child.key);
+                child.setValue(values, value);
+                if (child.children.length > 0 && value instanceof Map) {
+                    child.project((Map<?, ?>) value, values);
+                }
+            }
+        }
+
+        @SuppressWarnings({"unchecked"})
+        void projectInto(final Map<?, ?> map, final Map<?, ?> target) {
+            for (final Node child : children) {
+                final Object value = map.get(child.key);
+                if (value == null) {
+                    continue;
+                }
+
+                if (child.indexes.length > 0) {
+                    ((Map<Object, Object>) target).put(child.key,
+                            value instanceof Map ? copy((Map<?, ?>) value) : value);
+                } else if (value instanceof Map) {
+                    Object childTarget = target.get(child.key);
+                    if (!(childTarget instanceof Map)) {
+                        childTarget = new HashMap<Object, Object>();
+                        ((Map<Object, Object>) target).put(child.key, childTarget);
+                    }
+                    child.projectInto((Map<?, ?>) value, (Map<?, ?>) childTarget);
+                }
+            }
+        }
+
+        /**
+         * @return a copy of <code>map</code> and the maps nested in it, so changing the target can't change the source
+         */
+        private static Map<Object, Object> copy(final Map<?, ?> map) {
+            final Map<Object, Object> result = new HashMap<Object, Object>(Maps.capacityFor(map.size()));
+            for (final Map.Entry<?, ?> entry : map.entrySet()) {
+                final Object value = entry.getValue();
+                result.put(entry.getKey(), value instanceof Map ? copy((Map<?, ?>) value) : value);
+            }
+
+            return result;
+        }
+    }
+}
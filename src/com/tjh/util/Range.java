@@ -2,8 +2,12 @@ package com.tjh.util;
 
 import java.util.Iterator;
 import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
-public class Range<T extends Comparable<? super T>>{
+public class Range<T extends Comparable<? super T>> implements Iterable<T> {
     private T min;
     private T max;
     private boolean inclusive;
@@ -72,7 +76,52 @@ public class Range<T extends Comparable<? super T>>{
 
     //iterable
 
-    public Iterator<T> iterator() { return new RangeIterator(); }
+    /**
+     * Ranges of Integers and Longs iterate over an {@link IntRange} or {@link LongRange}, which avoid creating a
+     * {@link Mutable} and only box the values actually returned. All other types step through {@link Mutables}.
+     *
+     * @return an iterator from <code>min</code> to <code>max</code>, inclusive
+     */
+    @SuppressWarnings({"unchecked"})
+    public Iterator<T> iterator() {
+        final Iterator<T> result;
+        if (min instanceof Integer && max instanceof Integer) {
+            result = (Iterator<T>) new IntRange((Integer) min, (Integer) max).iterator();
+        } else if (min instanceof Long && max instanceof Long) {
+            result = (Iterator<T>) new LongRange((Long) min, (Long) max).iterator();
+        } else {
+            result = new RangeIterator();
+        }
+
+        return result;
+    }
+
+    /**
+     * Ranges of Integers and Longs produce an exactly sized spliterator that splits at its midpoint. Other
+     * {@link Mutable} types can't measure the distance between <code>min</code> and <code>max</code>, so they split
+     * off batches of the iterator instead.
+     *
+     * @return a spliterator over the same elements as {@link #iterator()}
+     */
+    @SuppressWarnings({"unchecked"})
+    @Override
+    public Spliterator<T> spliterator() {
+        final Spliterator<T> result;
+        if (min instanceof Integer && max instanceof Integer) {
+            result = (Spliterator<T>) new IntRange((Integer) min, (Integer) max).spliterator();
+        } else if (min instanceof Long && max instanceof Long) {
+            result = (Spliterator<T>) new LongRange((Long) min, (Long) max).spliterator();
+        } else {
+            result = Spliterators.spliteratorUnknownSize(iterator(),
+                    Spliterator.ORDERED | Spliterator.SORTED | Spliterator.DISTINCT | Spliterator.NONNULL);
+        }
+
+        return result;
+    }
+
+    public Stream<T> stream() { return StreamSupport.stream(spliterator(), false); }
+
+    public Stream<T> parallelStream() { return StreamSupport.stream(spliterator(), true); }
 
     //object
 
@@ -0,0 +1,33 @@
+package com.tjh.util;
+
+/**
+ * Folds the values in a group down to a single result, as used by
+ * {@link Maps#index(java.util.Collection, Block, Reducer)}. See {@link Reducers} for common reducers.
+ *
+ * @param <V> the type of value being reduced
+ * @param <R> the type of the result
+ */
+public interface Reducer<V, R> {
+    /**
+     * @return the result for a group before any values are added. Mutable results must be new on every call
+     */
+    R initial();
+
+    /**
+     * @param result the result so far
+     * @param value  the next value in the group
+     * @return the result with <code>value</code> added. It may be <code>result</code> itself
+     */
+    R reduce(R result, V value);
+
+    /**
+     * Combines the results of two parts of the same group, when the group was reduced in parallel
+     *
+     * @param left  the result for the earlier values
+     * @param right the result for the later values
+     * @return the result for all the values. It may be <code>left</code> or <code>right</code> itself, but when
+     *         indexing into a ConcurrentMap <code>left</code> is already visible to other threads, so mutable results
+     *         should be combined into a new one
+     */
+    R combine(R left, R right);
+}
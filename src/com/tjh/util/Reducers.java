@@ -0,0 +1,72 @@
+package com.tjh.util;
+
+import java.util.ArrayList;
+import java.util.Collection;
+
+public class Reducers {
+    /**
+     * @param <V> the type of value being counted
+     * @return a reducer counting the values in each group
+     */
+    public static <V> Reducer<V, Long> count() {
+        return new Reducer<V, Long>() {
+            public Long initial() { return 0L; }
+
+            public Long reduce(final Long result, final V value) { return result + 1; }
+
+            public Long combine(final Long left, final Long right) { return left + right; }
+        };
+    }
+
+    /**
+     * @param block returns the number to add for each value. Fractions are truncated
+     * @param <V>   the type of value being summed
+     * @return a reducer adding up what <code>block</code> returns for the values in each group
+     */
+    public static <V> Reducer<V, Long> sum(final Block<? super V, ? extends Number> block) {
+        return new Reducer<V, Long>() {
+            public Long initial() { return 0L; }
+
+            public Long reduce(final Long result, final V value) { return result + block.invoke(value).longValue(); }
+
+            public Long combine(final Long left, final Long right) { return left + right; }
+        };
+    }
+
+    /**
+     * @param <V> the type of value
+     * @return a reducer keeping the first non-null value in each group
+     */
+    public static <V> Reducer<V, V> first() {
+        return new Reducer<V, V>() {
+            public V initial() { return null; }
+
+            public V reduce(final V result, final V value) { return result == null ? value : result; }
+
+            public V combine(final V left, final V right) { return left == null ? right : left; }
+        };
+    }
+
+    /**
+     * @param <V> the type of value
+     * @return a reducer collecting the values in each group into an ArrayList, in order. Combining builds a new list,
+     *         so a list already in a shared map is never changed while others may be reading it
+     */
+    public static <V> Reducer<V, Collection<V>> toList() {
+        return new Reducer<V, Collection<V>>() {
+            public Collection<V> initial() { return new ArrayList<V>(); }
+
+            public Collection<V> reduce(final Collection<V> result, final V value) {
+                result.add(value);
+                return result;
+            }
+
+            public Collection<V> combine(final Collection<V> left, final Collection<V> right) {
+                final Collection<V> result = new ArrayList<V>(left.size() + right.size());
+                result.addAll(left);
+                result.addAll(right);
+                return result;
+            }
+        };
+    }
+}
@@ -1,27 +1,138 @@
 package com.tjh.util;
 
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
 public class Strings {
+    private static final int NULL_LENGTH = 4;
+    private static final int ESTIMATED_LENGTH = 16;
 
     private Strings() {}
 
+    /**
+     * @param stringToCheck the word that will follow the article
+     * @return "an" if <code>stringToCheck</code> starts with a vowel or 'x', "a" otherwise
+     */
     public static String aOrAn(final String stringToCheck) {
-        return stringToCheck.toUpperCase().matches("^[A|E|I|O|U|X].*") ? "an" : "a";
+        if (stringToCheck.isEmpty()) {
+            return "a";
+        }
+
+        switch (Character.toUpperCase(stringToCheck.charAt(0))) {
+            case 'A':
+            case 'E':
+            case 'I':
+            case 'O':
+            case 'U':
+            case 'X':
+                return "an";
+            default:
+                return "a";
+        }
     }
 
     public static String join(final String[] strings, final String separator) { return join(separator, strings); }
 
-    public static String join(final String separator, final String... strings){
-        final StringBuffer result = new StringBuffer();
+    public static String join(final String separator, final String... strings) {
+        return join(separator, (Object[]) strings);
+    }
+
+    /**
+     * Joins the string values of <code>elements</code>, separated by <code>separator</code>. The result is built in a
+     * StringBuilder sized up front from the lengths of the elements, so it is never copied as it grows.
+     *
+     * @param separator the string to put between elements
+     * @param elements  the elements to join. <code>null</code> elements appear as "null"
+     * @return the joined string
+     */
+    public static String join(final String separator, final Object... elements) {
+        final List<Object> list = Arrays.asList(elements);
+        return appendTo(new StringBuilder(joinedLength(separator, list, elements.length)), separator, list)
+                .toString();
+    }
+
+    /**
+     * @param separator the string to put between elements
+     * @param elements  the elements to join. <code>null</code> elements appear as "null"
+     * @return the joined string
+     * @see #join(String, Object...)
+     */
+    public static String join(final String separator, final Iterable<?> elements) {
+        final StringBuilder result = elements instanceof Collection
+                ? new StringBuilder(joinedLength(separator, elements, ((Collection) elements).size()))
+                : new StringBuilder();
+        return appendTo(result, separator, elements).toString();
+    }
+
+    /**
+     * Appends the string values of <code>elements</code> to <code>builder</code>, separated by <code>separator</code>
+     *
+     * @param builder   the builder to append to
+     * @param separator the string to put between elements
+     * @param elements  the elements to join. <code>null</code> elements appear as "null"
+     * @return <code>builder</code>
+     */
+    public static StringBuilder appendTo(final StringBuilder builder, final String separator,
+                                         final Iterable<?> elements) {
         boolean inTheMiddle = false;
-        for (final String string : strings) {
-            if(inTheMiddle){
-                result.append(separator);
+        for (final Object element : elements) {
+            if (inTheMiddle) {
+                builder.append(separator);
+            }
+            if (element instanceof String) {
+                builder.append((String) element);
+            } else if (element instanceof CharSequence) {
+                builder.append((CharSequence) element);
+            } else {
+                builder.append(element);
             }
-            result.append(string);
             inTheMiddle = true;
         }
 
-        return result.toString();
+        return builder;
+    }
+
+    /**
+     * Appends the string values of <code>elements</code> to <code>appendable</code>, separated by
+     * <code>separator</code>, without building an intermediate string. Useful for writing straight to a Writer.
+     *
+     * @param appendable the destination
+     * @param separator  the string to put between elements
+     * @param elements   the elements to join. <code>null</code> elements appear as "null"
+     * @param <A>        the type of <code>appendable</code>
+     * @return <code>appendable</code>
+     * @throws IOException if <code>appendable</code> throws it
+     */
+    public static <A extends Appendable> A appendTo(final A appendable, final String separator,
+                                                    final Iterable<?> elements) throws IOException {
+        boolean inTheMiddle = false;
+        for (final Object element : elements) {
+            if (inTheMiddle) {
+                appendable.append(separator);
+            }
+            appendable.append(element instanceof CharSequence ? (CharSequence) element : String.valueOf(element));
+            inTheMiddle = true;
+        }
+
+        return appendable;
+    }
+
+    /**
+     * @return the exact length of the joined string if every element is a CharSequence or null, otherwise an estimate
+     */
+    private static int joinedLength(final String separator, final Iterable<?> elements, final int size) {
+        long result = size > 0 ? (long) separator.length() * (size - 1) : 0;
+        for (final Object element : elements) {
+            if (element instanceof CharSequence) {
+                result += ((CharSequence) element).length();
+            } else {
+                result += element == null ? NULL_LENGTH : ESTIMATED_LENGTH;
+            }
+        }
+
+        return (int) Math.min(result, Integer.MAX_VALUE - 8);
     }
 
     public static String substring(String string, Range<Integer> range){
@@ -12,7 +12,7 @@ import java.util.Map;
  */
 public class Types {
     private static final Map<Class<?>, Class<?>> WRAPPERS =
-            Maps.<Class<?>, Class<?>>asMap(int.class, Integer.class,
+            Maps.<Class<?>, Class<?>>asConstantMap(int.class, Integer.class,
                     char.class, Character.class,
                     long.class, Long.class,
                     float.class, Float.class,
@@ -89,6 +89,15 @@ public class ArgumentParserTests {
         assertThat(varArgs, equalTo(new String[]{"1", "2"}));
     }
 
+    @Test
+    public void normalizeStripsUpToTwoLeadingDashes() {
+        assertThat(argParser.normalize("-foo"), equalTo("foo"));
+        assertThat(argParser.normalize("---foo"), equalTo("-foo"));
+        assertThat(argParser.normalize("--"), equalTo("-"));
+        assertThat(argParser.normalize("-"), equalTo("-"));
+        assertThat(argParser.normalize(""), equalTo(""));
+    }
+
     @Before
     public void before() {
         argParser = new TestArgumentParser();
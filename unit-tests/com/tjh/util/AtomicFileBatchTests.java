@@ -0,0 +1,113 @@
+package com.tjh.util;
+
+import org.junit.After;
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.attribute.PosixFilePermission;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.Set;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.junit.Assert.assertThat;
+
+public class AtomicFileBatchTests {
+    private File dir;
+
+    @Test
+    public void commitWritesEveryFile() throws IOException {
+        final AtomicFileBatch batch = new AtomicFileBatch()
+                .add(new File(dir, "one"), new byte[]{1})
+                .add(new File(dir, "two"), new byte[]{2, 2});
+
+        batch.commit();
+
+        assertThat(Files.fileBytes(new File(dir, "one")), equalTo(new byte[]{1}));
+        assertThat(Files.fileBytes(new File(dir, "two")), equalTo(new byte[]{2, 2}));
+        assertThat(batch.size(), equalTo(0));
+    }
+
+    @Test
+    public void commitReplacesExistingFilesAndLeavesNoTempFiles() throws IOException {
+        final File file = new File(dir, "file");
+        Files.writeBytesToFile(file, new byte[]{9, 9, 9});
+
+        new AtomicFileBatch().add(file, new byte[]{1}).commit();
+
+        assertThat(Files.fileBytes(file), equalTo(new byte[]{1}));
+        assertThat(dir.list().length, equalTo(1));
+    }
+
+    @Test
+    public void commitKeepsPermissionsOfExistingFiles() throws IOException {
+        final File file = new File(dir, "file");
+        Files.writeBytesToFile(file, new byte[]{9});
+        final Set<PosixFilePermission> permissions = PosixFilePermissions.fromString("rw-rw-r--");
+        try {
+            java.nio.file.Files.setPosixFilePermissions(file.toPath(), permissions);
+        } catch (UnsupportedOperationException e) {
+            Assume.assumeNoException(e);
+        }
+
+        new AtomicFileBatch().add(file, new byte[]{1}).commit();
+
+        assertThat(java.nio.file.Files.getPosixFilePermissions(file.toPath()), equalTo(permissions));
+    }
+
+    @Test
+    public void laterWritesOfTheSameFileReplacePendingOnes() throws IOException {
+        final File file = new File(dir, "file");
+        final AtomicFileBatch batch = new AtomicFileBatch()
+                .add(file, new byte[]{1})
+                .add(new File(dir, "./file"), new byte[]{2});
+
+        assertThat(batch.size(), equalTo(1));
+        batch.commit();
+        assertThat(Files.fileBytes(file), equalTo(new byte[]{2}));
+    }
+
+    @Test
+    public void commitLeavesBufferPositionAlone() throws IOException {
+        final ByteBuffer buffer = ByteBuffer.wrap(new byte[]{1, 2, 3});
+        buffer.get();
+
+        Files.writeBytesToFileAtomically(new File(dir, "file"), buffer);
+
+        assertThat(buffer.position(), equalTo(1));
+        assertThat(Files.fileBytes(new File(dir, "file")), equalTo(new byte[]{2, 3}));
+    }
+
+    @Test
+    public void failedCommitsRemoveTempFiles() throws IOException {
+        final File missing = new File(new File(dir, "missing"), "file");
+        final AtomicFileBatch batch = new AtomicFileBatch()
+                .add(new File(dir, "file"), new byte[]{1})
+                .add(missing, new byte[]{2});
+
+        try {
+            batch.commit();
+        } catch (IOException e) {
+            //expected
+        }
+
+        assertThat(dir.list().length, equalTo(0));
+        assertThat(batch.size(), equalTo(0));
+    }
+
+    @Before
+    public void before() throws IOException {
+        dir = java.nio.file.Files.createTempDirectory("AtomicFileBatchTests").toFile();
+    }
+
+    @After
+    public void after() {
+        for (final File file : dir.listFiles()) {
+            file.delete();
+        }
+        dir.delete();
+    }
+}
@@ -0,0 +1,72 @@
+package com.tjh.util;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.function.Supplier;
+
+import static org.easymock.classextension.EasyMock.createMock;
+import static org.easymock.classextension.EasyMock.expect;
+import static org.easymock.classextension.EasyMock.replay;
+import static org.easymock.classextension.EasyMock.verify;
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.instanceOf;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.not;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.junit.Assert.assertThat;
+
+public class ClassFactoryTests {
+    private ClassFactory factory;
+
+    @Test
+    public void loadClassAsksTheClassLoaderOnce() throws ClassNotFoundException {
+        final ClassLoader mockLoader = createMock(ClassLoader.class);
+        expect(mockLoader.loadClass("java.util.ArrayList")).andReturn((Class) ArrayList.class).once();
+        replay(mockLoader);
+
+        factory = new ClassFactory(mockLoader);
+        factory.loadClass("java.util.ArrayList");
+        assertThat(factory.loadClass("java.util.ArrayList"), equalTo((Class) ArrayList.class));
+        verify(mockLoader);
+    }
+
+    @Test
+    public void missingClassesAreRememberedToo() throws ClassNotFoundException {
+        final ClassLoader mockLoader = createMock(ClassLoader.class);
+        expect(mockLoader.loadClass("no.such.Class")).andThrow(new ClassNotFoundException()).once();
+        replay(mockLoader);
+
+        factory = new ClassFactory(mockLoader);
+        assertThat(factory.canLoad("no.such.Class"), is(false));
+        assertThat(factory.canLoad("no.such.Class"), is(false));
+        verify(mockLoader);
+    }
+
+    @Test
+    public void supplierCreatesNewInstances() {
+        final Supplier<ArrayList> supplier = factory.supplier("java.util.ArrayList");
+
+        assertThat(supplier.get(), instanceOf(ArrayList.class));
+        assertThat(supplier.get(), not(sameInstance(supplier.get())));
+        assertThat(factory.<ArrayList>supplier("java.util.ArrayList"), sameInstance(supplier));
+    }
+
+    @Test(expected = RuntimeException.class)
+    public void supplierRequiresNoArgConstructor() {
+        factory.supplier("java.lang.Integer");
+    }
+
+    @Test(expected = RuntimeException.class)
+    public void instantiateRefusesPrivateConstructors() {
+        factory.instantiate(Hidden.class.getName());
+    }
+
+    @Before
+    public void before() { factory = new ClassFactory(getClass().getClassLoader()); }
+
+    static class Hidden {
+        private Hidden() {}
+    }
+}
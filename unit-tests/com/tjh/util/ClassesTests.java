@@ -3,11 +3,18 @@ package com.tjh.util;
 import org.junit.Test;
 
 import java.io.Serializable;
+import java.lang.annotation.Annotation;
 import java.lang.annotation.ElementType;
 import java.lang.annotation.Retention;
 import java.lang.annotation.RetentionPolicy;
 import java.lang.annotation.Target;
 import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
 
 import static com.tjh.test.Matchers.contains;
 import static com.tjh.util.Classes.allInterfacesFor;
@@ -19,6 +26,7 @@ import static org.easymock.EasyMock.verify;
 import static org.hamcrest.CoreMatchers.equalTo;
 import static org.hamcrest.CoreMatchers.instanceOf;
 import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.sameInstance;
 import static org.junit.Assert.assertThat;
 
 public class ClassesTests {
@@ -30,12 +38,39 @@ public class ClassesTests {
                         Object.class)));
     }
 
+    @Test
+    public void assignableToIsMemoized() {
+        assertThat(Classes.assignableTo(Subclass.class), sameInstance(Classes.assignableTo(Subclass.class)));
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void assignableToIsUnmodifiable() {
+        Classes.assignableTo(Subclass.class).clear();
+    }
+
     @Test
     public void commonBaseClassesIncludesClassAndInterfaces() {
         assertThat(Classes.commonBaseClasses(1, 2L, 4.0f, 3.141592654d, BigDecimal.ONE),
                 equalTo(Sets.<Class>asSet(Number.class, Comparable.class)));
     }
 
+    @Test
+    public void commonBaseClassesOfManyObjectsOfFewClasses() {
+        final List<Object> objects = new ArrayList<Object>();
+        for (int i = 0; i < 1000; i++) {
+            objects.add(i);
+            objects.add(BigDecimal.valueOf(i));
+        }
+
+        assertThat(Classes.commonBaseClasses(objects), equalTo(Sets.<Class>asSet(Number.class, Comparable.class)));
+    }
+
+    @Test
+    public void commonSupertypesOfClasses() {
+        assertThat(Classes.commonSupertypes(Arrays.<Class>asList(Subclass.class, LoneClass.class)),
+                equalTo(Sets.<Class>asSet(Interface1.class)));
+    }
+
     @Test
     public void commonBaseClassesReturnsObjectForEmptyList() {
         assertThat(Classes.commonBaseClasses(), equalTo(Sets.<Class>asSet(Object.class)));
@@ -150,6 +185,24 @@ public class ClassesTests {
                         AnnotatedMethodClass.class.getMethod("someOtherMethod")));
     }
 
+    @Test
+    public void annotatedMethodsAreCached() {
+        assertThat(Classes.annotatedMethods(AnnotatedMethodClass.class, MethodAnnotation.class),
+                sameInstance(Classes.annotatedMethods(AnnotatedMethodClass.class, MethodAnnotation.class)));
+    }
+
+    @Test
+    public void annotatedMethodsForSeveralAnnotations() throws NoSuchMethodException {
+        final Map<Class<? extends Annotation>, Collection<Method>> methods =
+                Classes.annotatedMethods(AnnotatedMethodClass.class,
+                        Arrays.<Class<? extends Annotation>>asList(MethodAnnotation.class, Deprecated.class));
+
+        assertThat(methods.get(MethodAnnotation.class),
+                contains(AbstractAnnotatedMethodClass.class.getMethod("someMethod"),
+                        AnnotatedMethodClass.class.getMethod("someOtherMethod")));
+        assertThat(methods.get(Deprecated.class).isEmpty(), is(true));
+    }
+
     @Test
     public void loadClass(){
         assertThat(Classes.loadClass(this.getClass().getCanonicalName()), equalTo((Class)this.getClass()));
@@ -11,6 +11,7 @@ import static org.easymock.EasyMock.createMock;
 import static org.easymock.EasyMock.replay;
 import static org.easymock.EasyMock.reset;
 import static org.easymock.EasyMock.verify;
+import static org.hamcrest.CoreMatchers.equalTo;
 import static org.hamcrest.CoreMatchers.instanceOf;
 import static org.junit.Assert.assertThat;
 import static org.junit.Assert.fail;
@@ -60,6 +61,80 @@ public class CompositeFactoryTests {
         }
     }
 
+    @Test
+    public void methodHandleCompositesRedirectToAppropriateInterfaces() {
+        reset(impl1, impl2);
+
+        impl1.method1();
+        impl2.method3();
+        replay(impl1, impl2);
+
+        composite = CompositeFactory.createComposite(MyComposite.class, CompositeFactory.Dispatch.METHOD_HANDLES,
+                impl1, impl2);
+        composite.method1();
+        composite.method3();
+        verify(impl1, impl2);
+    }
+
+    @Test
+    public void methodHandleCompositesThrowDelegateExceptionsUnwrapped() {
+        final Interface1 throwing = new Interface1() {
+            public void method1() { throw new IllegalStateException(); }
+
+            public void method2() {}
+
+            public void dupMethod() {}
+        };
+        composite = CompositeFactory.createComposite(MyComposite.class, CompositeFactory.Dispatch.METHOD_HANDLES,
+                throwing, impl2);
+
+        try {
+            composite.method1();
+            fail();
+        } catch (final IllegalStateException e) {
+            //expected
+        }
+    }
+
+    @Test
+    public void generatedCompositesRedirectToAppropriateInterfaces() {
+        reset(impl1, impl2);
+
+        impl1.method1();
+        impl1.dupMethod();
+        impl2.method3();
+        replay(impl1, impl2);
+
+        composite = CompositeFactory.createComposite(MyComposite.class, CompositeFactory.Dispatch.GENERATED,
+                impl1, impl2);
+        composite.method1();
+        composite.dupMethod();
+        composite.method3();
+        verify(impl1, impl2);
+    }
+
+    @Test
+    public void generatedCompositeClassesAreReused() {
+        final MyComposite another = CompositeFactory.createComposite(MyComposite.class,
+                CompositeFactory.Dispatch.GENERATED, impl1, impl2);
+        composite = CompositeFactory.createComposite(MyComposite.class, CompositeFactory.Dispatch.GENERATED,
+                impl1, impl2);
+
+        assertThat(another.getClass(), equalTo((Class) composite.getClass()));
+    }
+
+    @Test
+    public void generatedCompositesThrowNoSuchMethodForUnknownMethods() {
+        composite = CompositeFactory.createComposite(MyComposite.class, CompositeFactory.Dispatch.GENERATED, impl1);
+
+        try {
+            composite.method3();
+            fail();
+        } catch (final UndeclaredThrowableException ute) {
+            assertThat(ute.getCause(), instanceOf(NoSuchMethodException.class));
+        }
+    }
+
     @Before
     public void before() {
 
@@ -4,6 +4,7 @@ import static org.easymock.EasyMock.createMock;
 import static org.easymock.EasyMock.replay;
 import static org.easymock.EasyMock.verify;
 import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.sameInstance;
 import static org.junit.Assert.assertThat;
 
 import com.tjh.util.CompositeInvocationHandler;
@@ -14,20 +15,29 @@ import java.lang.reflect.Method;
 public class CompositeInvocationHandlerTests{
 
     @Test
-    public void objectForCachesDelegateOnceFound() throws NoSuchMethodException {
+    public void objectForRoutesToDelegate() throws NoSuchMethodException {
         Interface mockDelegate = createMock(Interface.class);
         final Method method = Interface.class.getMethod("method");
 
         replay(mockDelegate);
 
-        CompositeInvocationHandler handler = new CompositeInvocationHandler(mockDelegate);
-        handler.objectFor(method);
-        assertThat(handler.cache.get(method), equalTo((Object)mockDelegate));
+        CompositeInvocationHandler handler = new CompositeInvocationHandler(Interface.class, mockDelegate);
+        assertThat(handler.routes.indexFor(method), equalTo(0));
+        assertThat(handler.objectFor(method), equalTo((Object)mockDelegate));
         verify(mockDelegate);
     }
 
+    @Test
+    public void routesAreSharedByHandlersWithTheSameDelegateClasses() {
+        Interface mockDelegate = createMock(Interface.class);
+        replay(mockDelegate);
+
+        CompositeInvocationHandler handler1 = new CompositeInvocationHandler(Interface.class, mockDelegate);
+        CompositeInvocationHandler handler2 = new CompositeInvocationHandler(Interface.class, mockDelegate);
+        assertThat(handler1.routes, sameInstance(handler2.routes));
+    }
+
     interface Interface{
         public void method();
     }
 }
-
@@ -0,0 +1,111 @@
+package com.tjh.util;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.junit.Assert.assertThat;
+
+public class ConstantMapTests {
+
+    @Test
+    public void copyHasTheSameEntriesInTheSameOrder() {
+        final Map<String, Integer> original = new LinkedHashMap<String, Integer>();
+        for (int i = 0; i < 100; i++) {
+            original.put("key" + i, i);
+        }
+
+        final Map<String, Integer> copy = ConstantMap.copyOf(original);
+
+        assertThat(copy, equalTo(original));
+        assertThat(copy.hashCode(), equalTo(original.hashCode()));
+        assertThat(new ArrayList<String>(copy.keySet()), equalTo(new ArrayList<String>(original.keySet())));
+        for (int i = 0; i < 100; i++) {
+            assertThat(copy.get("key" + i), equalTo(i));
+        }
+        assertThat(copy.get("missing"), equalTo(null));
+        assertThat(copy.containsKey("missing"), equalTo(false));
+    }
+
+    @Test
+    public void smallStringMapsAreHashedPerfectly() {
+        final Map<String, Integer> copy = ConstantMap.copyOf(Maps.asMap("one", 1, "two", 2, "three", 3, "four", 4));
+
+        assertThat(((ConstantMap) copy).isPerfect(), equalTo(true));
+    }
+
+    @Test
+    public void collidingKeysAreStillFound() {
+        final List<Colliding> keys = new ArrayList<Colliding>();
+        final Map<Colliding, Integer> original = new HashMap<Colliding, Integer>();
+        for (int i = 0; i < 10; i++) {
+            keys.add(new Colliding(i));
+            original.put(keys.get(i), i);
+        }
+
+        final Map<Colliding, Integer> copy = ConstantMap.copyOf(original);
+
+        assertThat(((ConstantMap) copy).isPerfect(), equalTo(false));
+        for (int i = 0; i < 10; i++) {
+            assertThat(copy.get(keys.get(i)), equalTo(i));
+        }
+        assertThat(copy.get(new Colliding(10)), equalTo(null));
+    }
+
+    @Test
+    public void nullKeysAndValuesAreSupported() {
+        final Map<String, String> original = new HashMap<String, String>();
+        original.put(null, "null key");
+        original.put("null value", null);
+
+        final Map<String, String> copy = ConstantMap.copyOf(original);
+
+        assertThat(copy.get(null), equalTo("null key"));
+        assertThat(copy.containsKey("null value"), equalTo(true));
+        assertThat(copy.get("null value"), equalTo(null));
+    }
+
+    @Test
+    public void enumKeysAreCopiedToEnumMaps() {
+        final Map<Thread.State, String> copy = ConstantMap.copyOf(
+                Maps.<Thread.State, String>asMap(Thread.State.NEW, "new", Thread.State.BLOCKED, "blocked"));
+
+        assertThat(copy.get(Thread.State.BLOCKED), equalTo("blocked"));
+        assertThat(copy.toString(), equalTo("{NEW=new, BLOCKED=blocked}"));
+    }
+
+    @Test
+    public void emptyMapsAreShared() {
+        assertThat(ConstantMap.copyOf(new HashMap<String, String>()),
+                sameInstance(Collections.<String, String>emptyMap()));
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void copiesAreImmutable() {
+        ConstantMap.copyOf(Maps.asMap("one", 1)).put("two", 2);
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void enumCopiesAreImmutable() {
+        ConstantMap.copyOf(Maps.<Thread.State, String>asMap(Thread.State.NEW, "new")).clear();
+    }
+
+    private static class Colliding {
+        private final int id;
+
+        Colliding(final int id) { this.id = id; }
+
+        @Override
+        public boolean equals(final Object o) { return o instanceof Colliding && ((Colliding) o).id == id; }
+
+        @Override
+        public int hashCode() { return 42; }
+    }
+}
@@ -0,0 +1,161 @@
+package com.tjh.util;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.junit.Assert.assertThat;
+
+public class DirectoryWatcherTests {
+    private Path dir;
+    private DirectoryWatcher watcher;
+
+    @Test
+    public void existingFilesAreNotReported() throws IOException {
+        write(dir.resolve("existing"), 1);
+        watcher = new DirectoryWatcher(dir, everything(), false);
+
+        assertThat(watcher.poll().isEmpty(), equalTo(true));
+    }
+
+    @Test
+    public void pollReportsAddedChangedAndRemovedFiles() throws IOException {
+        final Path changed = write(dir.resolve("changed"), 1);
+        final Path removed = write(dir.resolve("removed"), 1);
+        watcher = new DirectoryWatcher(dir, everything(), false);
+
+        final Path added = write(dir.resolve("added"), 1);
+        write(changed, 2);
+        java.nio.file.Files.delete(removed);
+        final DirectoryWatcher.Changes changes = watcher.poll();
+
+        assertThat(changes.getAdded(), equalTo(Collections.singleton(added)));
+        assertThat(changes.getChanged(), equalTo(Collections.singleton(changed)));
+        assertThat(changes.getRemoved(), equalTo(Collections.singleton(removed)));
+        assertThat(watcher.poll().isEmpty(), equalTo(true));
+    }
+
+    @Test
+    public void pollReportsFilesInNewAndRemovedSubdirectories() throws IOException {
+        final Path old = java.nio.file.Files.createDirectory(dir.resolve("old"));
+        final Path oldFile = write(old.resolve("file"), 1);
+        watcher = new DirectoryWatcher(dir, everything(), false);
+
+        final Path added = write(java.nio.file.Files.createDirectories(dir.resolve("new").resolve("deeper"))
+                .resolve("file"), 1);
+        java.nio.file.Files.delete(oldFile);
+        java.nio.file.Files.delete(old);
+        final DirectoryWatcher.Changes changes = watcher.poll();
+
+        assertThat(changes.getAdded(), equalTo(Collections.singleton(added)));
+        assertThat(changes.getRemoved(), equalTo(Collections.singleton(oldFile)));
+    }
+
+    @Test
+    public void onlyMatchingFilesAreReported() throws IOException {
+        watcher = new DirectoryWatcher(dir, dir.getFileSystem().getPathMatcher("glob:**.txt"), false);
+
+        final Path text = write(dir.resolve("a.txt"), 1);
+        write(dir.resolve("a.dat"), 1);
+
+        assertThat(watcher.poll().getAdded(), equalTo(Collections.singleton(text)));
+    }
+
+    @Test
+    public void watchServiceReportsChanges() throws IOException, InterruptedException {
+        final Path sub = java.nio.file.Files.createDirectory(dir.resolve("sub"));
+        final Path changed = write(sub.resolve("changed"), 1);
+        watcher = new DirectoryWatcher(dir);
+
+        final Path added = write(dir.resolve("added"), 1);
+        write(changed, 2);
+
+        //events arrive asynchronously, and some platforms only poll for them every few seconds
+        final Set<Path> allAdded = new HashSet<Path>();
+        final Set<Path> allChanged = new HashSet<Path>();
+        final long deadline = System.currentTimeMillis() + 30000;
+        while ((allAdded.isEmpty() || allChanged.isEmpty()) && System.currentTimeMillis() < deadline) {
+            final DirectoryWatcher.Changes changes = watcher.poll();
+            allAdded.addAll(changes.getAdded());
+            allChanged.addAll(changes.getChanged());
+            Thread.sleep(10);
+        }
+
+        assertThat(allAdded, equalTo(Collections.singleton(added)));
+        assertThat(allChanged, equalTo(Collections.singleton(changed)));
+    }
+
+    @Test
+    public void watchServiceFollowsRenamedDirectories() throws IOException, InterruptedException {
+        final Path before = java.nio.file.Files.createDirectory(dir.resolve("before"));
+        write(before.resolve("file"), 1);
+        watcher = new DirectoryWatcher(dir);
+
+        final Path after = java.nio.file.Files.move(before, dir.resolve("after"));
+        assertThat(pollUntilAdded(after.resolve("file")), equalTo(true));
+
+        final Path added = write(after.resolve("added"), 1);
+        assertThat(pollUntilAdded(added), equalTo(true));
+    }
+
+    @Test
+    public void watchServiceFollowsRecreatedDirectories() throws IOException, InterruptedException {
+        final Path sub = java.nio.file.Files.createDirectory(dir.resolve("sub"));
+        watcher = new DirectoryWatcher(dir);
+
+        java.nio.file.Files.delete(sub);
+        java.nio.file.Files.createDirectory(sub);
+        watcher.poll();
+
+        final Path added = write(sub.resolve("added"), 1);
+        assertThat(pollUntilAdded(added), equalTo(true));
+    }
+
+    /**
+     * @return true if <code>file</code> was reported as added before the deadline
+     */
+    private boolean pollUntilAdded(final Path file) throws IOException, InterruptedException {
+        //events arrive asynchronously, and some platforms only poll for them every few seconds
+        final long deadline = System.currentTimeMillis() + 30000;
+        while (System.currentTimeMillis() < deadline) {
+            if (watcher.poll().getAdded().contains(file)) {
+                return true;
+            }
+            Thread.sleep(10);
+        }
+
+        return false;
+    }
+
+    private static Path write(final Path file, final int size) throws IOException {
+        Files.writeBytesToFile(file.toFile(), new byte[size]);
+        return file;
+    }
+
+    private static PathMatcher everything() {
+        return new PathMatcher() {
+            public boolean matches(final Path path) { return true; }
+        };
+    }
+
+    @Before
+    public void before() throws IOException {
+        dir = java.nio.file.Files.createTempDirectory("DirectoryWatcherTests");
+    }
+
+    @After
+    public void after() throws IOException {
+        if (watcher != null) {
+            watcher.close();
+        }
+        TempFiles.deleteTree(dir);
+    }
+}
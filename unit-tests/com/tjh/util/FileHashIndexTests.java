@@ -0,0 +1,134 @@
+package com.tjh.util;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.not;
+import static org.junit.Assert.assertThat;
+
+public class FileHashIndexTests {
+    private Path dir;
+    private FileHashIndex index;
+
+    @Test
+    public void hashDigestsFileContents() throws Exception {
+        final Path file = write("file", new byte[]{1, 2, 3});
+
+        assertThat(index.hash(file), equalTo(MessageDigest.getInstance("SHA-256").digest(new byte[]{1, 2, 3})));
+    }
+
+    @Test
+    public void unchangedFilesAreNotReread() throws IOException {
+        final Path file = write("file", new byte[]{1, 2, 3});
+        final FileTime modified = java.nio.file.Files.getLastModifiedTime(file);
+        final byte[] hash = index.hash(file);
+
+        //same size and modification time, so the remembered hash is used
+        write("file", new byte[]{4, 5, 6});
+        java.nio.file.Files.setLastModifiedTime(file, modified);
+        assertThat(index.hash(file), equalTo(hash));
+
+        java.nio.file.Files.setLastModifiedTime(file, FileTime.fromMillis(modified.toMillis() + 1000));
+        assertThat(index.hash(file), not(equalTo(hash)));
+    }
+
+    @Test
+    public void hashAllHashesEveryFile() throws IOException {
+        final Path one = write("one", new byte[]{1});
+        final Path two = write("two", new byte[]{2});
+
+        final Map<Path, byte[]> hashes = index.hashAll(Arrays.asList(one, two));
+
+        assertThat(hashes.size(), equalTo(2));
+        assertThat(hashes.get(one), equalTo(index.hash(one)));
+        assertThat(hashes.get(two), equalTo(index.hash(two)));
+    }
+
+    @Test
+    public void duplicatesGroupsFilesWithTheSameContents() throws IOException {
+        final Path one = write("one", new byte[]{1, 2});
+        final Path copy = write("copy", new byte[]{1, 2});
+        write("sameSize", new byte[]{2, 1});
+        write("otherSize", new byte[]{1});
+        final Path nested = write(java.nio.file.Files.createDirectory(dir.resolve("sub")).resolve("nested"),
+                new byte[]{1, 2});
+
+        final Collection<Set<Path>> duplicates = index.duplicates(dir, new PathMatcher() {
+            public boolean matches(final Path path) { return true; }
+        });
+
+        assertThat(duplicates.size(), equalTo(1));
+        assertThat(duplicates.iterator().next(), equalTo((Set<Path>) new HashSet<Path>(Arrays.asList(one, copy,
+                nested))));
+        assertThat(index.size(), equalTo(4));
+    }
+
+    @Test
+    public void savedHashesCanBeLoaded() throws IOException {
+        final Path file = write("file", new byte[]{1, 2, 3});
+        final byte[] hash = index.hash(file);
+        index.save(dir.resolve("index").toFile());
+
+        final FileHashIndex loaded = new FileHashIndex();
+        loaded.load(dir.resolve("index").toFile());
+
+        assertThat(loaded.size(), equalTo(1));
+        //proves the hash came from the saved index rather than the file
+        final FileTime modified = java.nio.file.Files.getLastModifiedTime(file);
+        write("file", new byte[]{4, 5, 6});
+        java.nio.file.Files.setLastModifiedTime(file, modified);
+        assertThat(loaded.hash(file), equalTo(hash));
+    }
+
+    @Test(expected = IOException.class)
+    public void loadRejectsOtherAlgorithms() throws IOException {
+        index.hash(write("file", new byte[]{1}));
+        index.save(dir.resolve("index").toFile());
+
+        new FileHashIndex("MD5").load(dir.resolve("index").toFile());
+    }
+
+    @Test
+    public void pruneForgetsMissingFiles() throws IOException {
+        final Path file = write("file", new byte[]{1});
+        index.hash(file);
+        index.hash(write("kept", new byte[]{1}));
+        java.nio.file.Files.delete(file);
+
+        assertThat(index.prune(), equalTo(1));
+        assertThat(index.size(), equalTo(1));
+    }
+
+    private Path write(final String name, final byte[] bytes) throws IOException {
+        return write(dir.resolve(name), bytes);
+    }
+
+    private static Path write(final Path file, final byte[] bytes) throws IOException {
+        Files.writeBytesToFile(file.toFile(), bytes);
+        return file;
+    }
+
+    @Before
+    public void before() throws IOException {
+        dir = java.nio.file.Files.createTempDirectory("FileHashIndexTests").toRealPath();
+        index = new FileHashIndex();
+    }
+
+    @After
+    public void after() throws IOException {
+        TempFiles.deleteTree(dir);
+    }
+}
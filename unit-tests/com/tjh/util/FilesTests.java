@@ -1,20 +1,53 @@
 package com.tjh.util;
 
+import org.junit.After;
+import org.junit.Assume;
 import org.junit.Before;
 import org.junit.Test;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.FileFilter;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.Pipe;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.Charset;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.nio.file.Paths;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
 
 import static com.tjh.test.ArgumentMatchers.notEqualTo;
 import static org.easymock.classextension.EasyMock.createMock;
 import static org.easymock.classextension.EasyMock.expect;
 import static org.easymock.classextension.EasyMock.replay;
 import static org.easymock.classextension.EasyMock.verify;
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.junit.Assert.assertThat;
 
 public class FilesTests {
     private File mockDir;
     private FileFilter mockFileFilter;
+    private Path tempDir;
 
     @Test(expected = IllegalArgumentException.class)
     public void findRequiresDirectory() {
@@ -49,6 +82,287 @@ public class FilesTests {
         verify(mockDir, mockFileFilter);
     }
 
+    @Test
+    public void findPathsVisitsEveryMatchBelowBaseDir() throws IOException {
+        final Path baseDir = tree();
+        final Set<Path> found = Collections.newSetFromMap(new ConcurrentHashMap<Path, Boolean>());
+
+        final boolean completed = Files.find(baseDir, txtFiles(), new Block<Path, Boolean>() {
+            public Boolean invoke(final Path path) { return found.add(baseDir.relativize(path)); }
+        });
+
+        assertThat(completed, equalTo(true));
+        assertThat(found, equalTo((Set<Path>) new HashSet<Path>(Arrays.asList(Paths.get("a.txt"),
+                Paths.get("sub", "b.txt"), Paths.get("sub", "deeper", "c.txt")))));
+    }
+
+    @Test
+    public void findPathsStopsWhenBlockReturnsFalse() throws IOException {
+        final AtomicInteger calls = new AtomicInteger();
+        final ForkJoinPool pool = new ForkJoinPool(1);
+        try {
+            final boolean completed = Files.find(pool, tree(), txtFiles(), new Block<Path, Boolean>() {
+                public Boolean invoke(final Path path) { return calls.incrementAndGet() < 1; }
+            });
+
+            assertThat(completed, equalTo(false));
+            assertThat(calls.get(), equalTo(1));
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    public void findPathsAcceptsFileFilters() throws IOException {
+        final Path baseDir = tree();
+        final List<Path> found = Collections.synchronizedList(new ArrayList<Path>());
+
+        Files.find(baseDir, Files.matcher(new FileFilter() {
+            public boolean accept(final File file) { return file.isDirectory(); }
+        }), new Block<Path, Boolean>() {
+            public Boolean invoke(final Path path) { return found.add(baseDir.relativize(path)); }
+        });
+
+        assertThat(new HashSet<Path>(found), equalTo((Set<Path>) new HashSet<Path>(
+                Arrays.asList(Paths.get("sub"), Paths.get("sub", "deeper")))));
+    }
+
+    @Test
+    public void streamLazilyIncludesMatchesBelowBaseDir() throws IOException {
+        final Path baseDir = tree();
+        final Set<Path> found = new HashSet<Path>();
+        try (Stream<Path> stream = Files.stream(baseDir, txtFiles())) {
+            for (final Iterator<Path> iter = stream.iterator(); iter.hasNext();) {
+                found.add(baseDir.relativize(iter.next()));
+            }
+        }
+
+        assertThat(found, equalTo((Set<Path>) new HashSet<Path>(Arrays.asList(Paths.get("a.txt"),
+                Paths.get("sub", "b.txt"), Paths.get("sub", "deeper", "c.txt")))));
+    }
+
+    @Test
+    public void streamAndFindSkipUnreadableDirectories() throws IOException {
+        final Path baseDir = tree();
+        final Path deeper = baseDir.resolve("sub").resolve("deeper");
+        java.nio.file.Files.setPosixFilePermissions(deeper, PosixFilePermissions.fromString("---------"));
+        try {
+            Assume.assumeTrue(!java.nio.file.Files.isReadable(deeper));
+            final Set<Path> streamed = new HashSet<Path>();
+            try (Stream<Path> stream = Files.stream(baseDir, txtFiles())) {
+                for (final Iterator<Path> iter = stream.iterator(); iter.hasNext();) {
+                    streamed.add(baseDir.relativize(iter.next()));
+                }
+            }
+            final Set<Path> found = Collections.newSetFromMap(new ConcurrentHashMap<Path, Boolean>());
+            Files.find(baseDir, txtFiles(), new Block<Path, Boolean>() {
+                public Boolean invoke(final Path path) { return found.add(baseDir.relativize(path)); }
+            });
+
+            final Set<Path> expected = new HashSet<Path>(Arrays.asList(Paths.get("a.txt"), Paths.get("sub", "b.txt")));
+            assertThat(streamed, equalTo(expected));
+            assertThat(found, equalTo(expected));
+        } finally {
+            java.nio.file.Files.setPosixFilePermissions(deeper, PosixFilePermissions.fromString("rwx------"));
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void findPathsRequiresDirectory() throws IOException {
+        final Path file = java.nio.file.Files.createFile(tree().resolve("file"));
+
+        Files.find(file, txtFiles(), null);
+    }
+
+    @Test
+    public void mapSplitsFileIntoChunks() throws IOException {
+        final File file = file(new byte[]{1, 2, 3, 4, 5});
+
+        final List<MappedByteBuffer> buffers = Files.map(file, 2);
+
+        assertThat(buffers.size(), equalTo(3));
+        assertThat(buffers.get(0).get(1), equalTo((byte) 2));
+        assertThat(buffers.get(2).remaining(), equalTo(1));
+        assertThat(buffers.get(2).get(0), equalTo((byte) 5));
+    }
+
+    @Test
+    public void mapReturnsOneBufferForSmallFiles() throws IOException {
+        final List<MappedByteBuffer> buffers = Files.map(file(new byte[]{1, 2, 3}));
+
+        assertThat(buffers.size(), equalTo(1));
+        assertThat(buffers.get(0).remaining(), equalTo(3));
+    }
+
+    @Test
+    public void copyTransfersWholeFile() throws IOException {
+        final File source = file(new byte[]{1, 2, 3});
+        final File target = new File(source.getParentFile(), "target");
+
+        assertThat(Files.copy(source, target), equalTo(3L));
+        assertThat(Files.fileBytes(target), equalTo(new byte[]{1, 2, 3}));
+    }
+
+    @Test
+    public void copyOntoItselfLeavesFileAlone() throws IOException {
+        final File source = file(new byte[]{1, 2, 3});
+        final File link = java.nio.file.Files.createLink(source.toPath().resolveSibling("link"), source.toPath())
+                .toFile();
+
+        assertThat(Files.copy(source, source), equalTo(3L));
+        assertThat(Files.copy(source, link), equalTo(3L));
+        assertThat(Files.fileBytes(source), equalTo(new byte[]{1, 2, 3}));
+    }
+
+    @Test
+    public void copyTransfersFromChannel() throws IOException {
+        final File target = new File(file(new byte[0]).getParentFile(), "target");
+        final ReadableByteChannel source = Channels.newChannel(new ByteArrayInputStream(new byte[]{1, 2, 3, 4}));
+
+        assertThat(Files.copy(source, target, 3), equalTo(3L));
+        assertThat(Files.fileBytes(target), equalTo(new byte[]{1, 2, 3}));
+    }
+
+    @Test
+    public void copyTransfersToChannel() throws IOException {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        Files.copy(file(new byte[]{1, 2, 3}), Channels.newChannel(out));
+        assertThat(out.toByteArray(), equalTo(new byte[]{1, 2, 3}));
+    }
+
+    @Test(timeout = 10000)
+    public void copyStopsWhenNonBlockingChannelIsFull() throws IOException {
+        final Pipe pipe = Pipe.open();
+        try {
+            pipe.sink().configureBlocking(false);
+
+            final long copied = Files.copy(file(new byte[16 << 20]), pipe.sink());
+            assertThat(copied > 0 && copied < 16 << 20, equalTo(true));
+        } finally {
+            pipe.sink().close();
+            pipe.source().close();
+        }
+    }
+
+    @Test
+    public void writeBytesToFileWritesRemainingBuffer() throws IOException {
+        final File file = file(new byte[]{9, 9, 9, 9});
+        final ByteBuffer buffer = ByteBuffer.allocateDirect(3);
+        buffer.put(new byte[]{1, 2, 3}).flip();
+        buffer.get();
+
+        Files.writeBytesToFile(file, buffer);
+        assertThat(Files.fileBytes(file), equalTo(new byte[]{2, 3}));
+        assertThat(buffer.hasRemaining(), equalTo(false));
+    }
+
+    @Test
+    public void eachChunkReadsFixedSizeChunks() throws IOException {
+        final List<byte[]> chunks = new ArrayList<byte[]>();
+
+        final boolean completed = Files.eachChunk(file(new byte[]{1, 2, 3, 4, 5}), 2, chunkCollector(chunks));
+
+        assertThat(completed, equalTo(true));
+        assertThat(chunks.size(), equalTo(3));
+        assertThat(chunks.get(1), equalTo(new byte[]{3, 4}));
+        assertThat(chunks.get(2), equalTo(new byte[]{5}));
+    }
+
+    @Test
+    public void eachChunkReusesOneBuffer() throws IOException {
+        final Set<ByteBuffer> buffers = Collections.newSetFromMap(new IdentityHashMap<ByteBuffer, Boolean>());
+
+        Files.eachChunk(file(new byte[]{1, 2, 3, 4, 5}), 2, new Block<ByteBuffer, Boolean>() {
+            public Boolean invoke(final ByteBuffer chunk) {
+                buffers.add(chunk);
+                return true;
+            }
+        });
+
+        assertThat(buffers.size(), equalTo(1));
+    }
+
+    @Test
+    public void eachChunkReadsAheadOnExecutor() throws IOException {
+        final ExecutorService readAhead = Executors.newSingleThreadExecutor();
+        try {
+            final List<byte[]> chunks = new ArrayList<byte[]>();
+
+            Files.eachChunk(file(new byte[]{1, 2, 3, 4, 5}), 2, readAhead, chunkCollector(chunks));
+
+            assertThat(chunks.size(), equalTo(3));
+            assertThat(chunks.get(0), equalTo(new byte[]{1, 2}));
+            assertThat(chunks.get(1), equalTo(new byte[]{3, 4}));
+            assertThat(chunks.get(2), equalTo(new byte[]{5}));
+        } finally {
+            readAhead.shutdown();
+        }
+    }
+
+    @Test
+    public void eachChunkStopsWhenBlockReturnsFalse() throws IOException {
+        final AtomicInteger calls = new AtomicInteger();
+
+        final boolean completed = Files.eachChunk(file(new byte[]{1, 2, 3, 4, 5}), 2,
+                new Block<ByteBuffer, Boolean>() {
+                    public Boolean invoke(final ByteBuffer chunk) { return calls.incrementAndGet() < 2; }
+                });
+
+        assertThat(completed, equalTo(false));
+        assertThat(calls.get(), equalTo(2));
+    }
+
+    @Test
+    public void eachLineCallsBlockForEveryLine() throws IOException {
+        final List<String> lines = new ArrayList<String>();
+
+        Files.eachLine(file("one\ntwo\r\nthree".getBytes("UTF-8")), Charset.forName("UTF-8"),
+                new Block<String, Boolean>() {
+                    public Boolean invoke(final String line) { return lines.add(line); }
+                });
+
+        assertThat(lines, equalTo(Arrays.asList("one", "two", "three")));
+    }
+
+    private static Block<ByteBuffer, Boolean> chunkCollector(final List<byte[]> chunks) {
+        return new Block<ByteBuffer, Boolean>() {
+            public Boolean invoke(final ByteBuffer chunk) {
+                final byte[] bytes = new byte[chunk.remaining()];
+                chunk.get(bytes);
+                return chunks.add(bytes);
+            }
+        };
+    }
+
+    private File file(final byte[] bytes) throws IOException {
+        if (tempDir == null) {
+            tempDir = java.nio.file.Files.createTempDirectory("FilesTests");
+        }
+        final File result = tempDir.resolve("file").toFile();
+        Files.writeBytesToFile(result, bytes);
+        return result;
+    }
+
+    private Path tree() throws IOException {
+        tempDir = java.nio.file.Files.createTempDirectory("FilesTests");
+        final Path deeper = java.nio.file.Files.createDirectories(tempDir.resolve("sub").resolve("deeper"));
+        java.nio.file.Files.createFile(tempDir.resolve("a.txt"));
+        java.nio.file.Files.createFile(tempDir.resolve("a.dat"));
+        java.nio.file.Files.createFile(deeper.getParent().resolve("b.txt"));
+        java.nio.file.Files.createFile(deeper.resolve("c.txt"));
+        return tempDir;
+    }
+
+    private static PathMatcher txtFiles() { return FileSystems.getDefault().getPathMatcher("glob:**.txt"); }
+
+    @After
+    public void after() throws IOException {
+        if (tempDir != null) {
+            TempFiles.deleteTree(tempDir);
+        }
+    }
+
     @Before
     public void before() {
         mockDir = createMock(File.class);
@@ -0,0 +1,106 @@
+package com.tjh.util;
+
+import org.junit.Test;
+
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+import java.util.Spliterator;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.instanceOf;
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+public class IntRangeTests {
+
+    @Test(expected = IllegalArgumentException.class)
+    public void constructorRequiresMinToBeLessThanOrEqualToMax() {
+        new IntRange(10, 1);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void stepMustBePositive() {
+        new IntRange(1, 10).step(0);
+    }
+
+    @Test
+    public void iteratesInclusively() {
+        final PrimitiveIterator.OfInt iterator = new IntRange(1, 3).iterator();
+        assertThat(iterator.nextInt(), equalTo(1));
+        assertThat(iterator.nextInt(), equalTo(2));
+        assertThat(iterator.nextInt(), equalTo(3));
+        assertThat(iterator.hasNext(), is(false));
+    }
+
+    @Test
+    public void exclusiveRangeDoesNotIterateMax() {
+        final PrimitiveIterator.OfInt iterator = new IntRange(1, 3, false).iterator();
+        iterator.nextInt();
+        iterator.nextInt();
+        assertThat(iterator.hasNext(), is(false));
+    }
+
+    @Test
+    public void iteratesBySteps() {
+        final PrimitiveIterator.OfInt iterator = new IntRange(0, 10).step(4).iterator();
+        assertThat(iterator.nextInt(), equalTo(0));
+        assertThat(iterator.nextInt(), equalTo(4));
+        assertThat(iterator.nextInt(), equalTo(8));
+        assertThat(iterator.hasNext(), is(false));
+    }
+
+    @Test
+    public void iteratesUpToMaxValueWithoutOverflowing() {
+        final PrimitiveIterator.OfInt iterator = new IntRange(Integer.MAX_VALUE - 1, Integer.MAX_VALUE).iterator();
+        iterator.nextInt();
+        assertThat(iterator.nextInt(), equalTo(Integer.MAX_VALUE));
+        assertThat(iterator.hasNext(), is(false));
+    }
+
+    @Test(expected = NoSuchElementException.class)
+    public void nextThrowsNSEWhenDone() {
+        final PrimitiveIterator.OfInt iterator = new IntRange(1, 1).iterator();
+        iterator.nextInt();
+        iterator.nextInt();
+    }
+
+    @Test
+    public void sizeAccountsForStep() {
+        assertThat(new IntRange(Integer.MIN_VALUE, Integer.MAX_VALUE).size(), equalTo(1L << 32));
+        assertThat(new IntRange(0, 10).step(4).size(), equalTo(3L));
+    }
+
+    @Test
+    public void containsAnotherRange() {
+        assertThat(new IntRange(1, 4).contains(new IntRange(2, 3)), is(true));
+        assertThat(new IntRange(1, 4).contains(new IntRange(3, 5)), is(false));
+    }
+
+    @Test
+    public void intersectionAndUnion() {
+        assertThat(new IntRange(1, 4).intersection(new IntRange(2, 5)), equalTo(new IntRange(2, 4)));
+        assertThat(new IntRange(1, 4).union(new IntRange(2, 5)), equalTo(new IntRange(1, 5)));
+    }
+
+    @Test
+    public void integerRangesIterateWithIntRange() {
+        assertThat(new Range<Integer>(1, 2).iterator(), instanceOf(PrimitiveIterator.OfInt.class));
+        assertThat(new Range<Long>(1L, 2L).iterator(), instanceOf(PrimitiveIterator.OfLong.class));
+    }
+
+    @Test
+    public void spliteratorSplitsAtMidpoint() {
+        final Spliterator.OfInt suffix = new IntRange(0, 9).step(2).spliterator();
+        final Spliterator.OfInt prefix = suffix.trySplit();
+
+        assertThat(prefix.estimateSize(), equalTo(2L));
+        assertThat(suffix.estimateSize(), equalTo(3L));
+        assertThat(prefix.hasCharacteristics(Spliterator.SUBSIZED), is(true));
+    }
+
+    @Test
+    public void parallelStreamVisitsEveryElement() {
+        assertThat(new IntRange(1, 100000).parallelStream().asLongStream().sum(), equalTo(5000050000L));
+        assertThat(new IntRange(Integer.MAX_VALUE - 2, Integer.MAX_VALUE).parallelStream().count(), equalTo(3L));
+    }
+}
@@ -0,0 +1,121 @@
+package com.tjh.util;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.junit.Assert.assertThat;
+
+public class KeyPathTests {
+    private Map<String, Object> map;
+
+    @Test
+    public void compileSplitsOnDots() {
+        assertThat(KeyPath.compile("a.b.c").keys(), equalTo(Arrays.<Object>asList("a", "b", "c")));
+        assertThat(KeyPath.compile("a.b..").keys(), equalTo(Arrays.<Object>asList("a", "b")));
+        assertThat(KeyPath.compile("a..b").keys(), equalTo(Arrays.<Object>asList("a", "", "b")));
+        assertThat(KeyPath.compile("").keys(), equalTo(Arrays.<Object>asList("")));
+        assertThat(KeyPath.compile("..").size(), equalTo(0));
+    }
+
+    @Test
+    public void compileCachesKeyPaths() {
+        assertThat(KeyPath.compile("a.b.c"), sameInstance(KeyPath.compile("a.b.c")));
+    }
+
+    @Test
+    public void getNavigatesNestedMaps() {
+        assertThat(KeyPath.compile("a.b.c").<String>get(map), equalTo("abc"));
+        assertThat(KeyPath.of("a", "b").<Map>get(map).size(), equalTo(2));
+        assertThat(KeyPath.of("green", BigDecimal.TEN).<String>get(
+                Maps.asMap("green", Maps.asMap(BigDecimal.TEN, "ten"))), equalTo("ten"));
+    }
+
+    @Test
+    public void getReturnsNullForMissingLeaves() {
+        assertThat(KeyPath.compile("a.b.missing").get(map), equalTo(null));
+    }
+
+    @Test(expected = NullPointerException.class)
+    public void getFailsForMissingIntermediateMaps() {
+        KeyPath.compile("a.missing.c").get(map);
+    }
+
+    @Test
+    public void putReplacesValue() {
+        assertThat(KeyPath.compile("a.b.c").put(map, "new"), equalTo((Object) "abc"));
+        assertThat(Maps.<String>valueFor(map, "a.b.c"), equalTo("new"));
+    }
+
+    @Test
+    public void putCanCreateMissingMaps() {
+        KeyPath.compile("x.y.z").put(map, "xyz", true);
+        assertThat(Maps.<String>valueFor(map, "x.y.z"), equalTo("xyz"));
+    }
+
+    @Test(expected = NullPointerException.class)
+    public void putFailsForMissingMapsByDefault() {
+        KeyPath.compile("x.y.z").put(map, "xyz");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void putRequiresKeys() {
+        KeyPath.compile(".").put(map, "value");
+    }
+
+    @Test
+    public void getAllReadsEachKeyPath() {
+        final Object[] values = KeyPath.getAll(map, KeyPath.compile("a.b.c"), KeyPath.compile("a.b.d"),
+                KeyPath.compile("a.e"), KeyPath.compile("a.missing.c"), KeyPath.compile("f"));
+
+        assertThat(values, equalTo(new Object[]{"abc", "abd", "ae", null, "f"}));
+    }
+
+    @Test
+    public void putAllPutsEachValue() {
+        final Map<KeyPath, Object> values = new LinkedHashMap<KeyPath, Object>();
+        values.put(KeyPath.compile("a.b.c"), 1);
+        values.put(KeyPath.compile("a.b.new"), 2);
+        values.put(KeyPath.compile("a.x.y"), 3);
+        values.put(KeyPath.compile("z"), 4);
+
+        KeyPath.putAll(map, values, true);
+
+        assertThat(KeyPath.getAll(map, new ArrayList<KeyPath>(values.keySet())),
+                equalTo(new Object[]{1, 2, 3, 4}));
+    }
+
+    @Test
+    public void keyPathsWithEqualKeysAreEqual() {
+        assertThat(KeyPath.of("a", "b"), equalTo(KeyPath.compile("a.b")));
+        assertThat(KeyPath.of(Arrays.asList("a", "b")).hashCode(), equalTo(KeyPath.compile("a.b").hashCode()));
+        assertThat(KeyPath.of("a", "b").toString(), equalTo("a.b"));
+    }
+
+    @Test
+    public void putValueForCanCreateMissingMaps() {
+        Maps.putValueFor(map, "x.y", "xy", true);
+        assertThat(Maps.<String>valueFor(map, KeyPath.compile("x.y")), equalTo("xy"));
+    }
+
+    @Before
+    public void before() {
+        map = new HashMap<String, Object>();
+        final Map<String, Object> a = new HashMap<String, Object>();
+        final Map<String, Object> b = new HashMap<String, Object>();
+        b.put("c", "abc");
+        b.put("d", "abd");
+        a.put("b", b);
+        a.put("e", "ae");
+        map.put("a", a);
+        map.put("f", "f");
+    }
+}
@@ -58,6 +58,22 @@ public class ListsTests {
                 equalTo((Collection<String>) Arrays.asList(TIM, NAILA, CALEB, JEFF, BETH)));
     }
 
+    @Test
+    public void flatteningArraysUsesCommonComponentType() {
+        final Number[] flattened = Lists.flatten(new Integer[]{1, 2}, new Long[]{3L});
+
+        assertThat(Arrays.asList(flattened), equalTo(Arrays.<Number>asList(1, 2, 3L)));
+        assertThat(flattened.getClass().getComponentType(), equalTo((Class) Number.class));
+    }
+
+    @Test
+    public void flatteningArraysOfUnrelatedInterfacesUsesObject() {
+        final Object[] flattened = Lists.flatten(new Runnable[]{null}, new CharSequence[]{"a"});
+
+        assertThat(Arrays.asList(flattened), equalTo(Arrays.<Object>asList(null, "a")));
+        assertThat(flattened.getClass().getComponentType(), equalTo((Class) Object.class));
+    }
+
     @Test
     public void asListWithOneItem() {
         assertThat(Lists.asList(CALEB), equalTo(Arrays.asList(CALEB)));
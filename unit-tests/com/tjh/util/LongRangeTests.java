@@ -0,0 +1,88 @@
+package com.tjh.util;
+
+import org.junit.Test;
+
+import java.util.PrimitiveIterator;
+import java.util.Spliterator;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+public class LongRangeTests {
+
+    @Test(expected = IllegalArgumentException.class)
+    public void exclusiveRangeCannotBeEmpty() {
+        new LongRange(1L, 1L, false);
+    }
+
+    @Test
+    public void iteratesBySteps() {
+        final PrimitiveIterator.OfLong iterator = new LongRange(0L, 9L).step(3L).iterator();
+        assertThat(iterator.nextLong(), equalTo(0L));
+        assertThat(iterator.nextLong(), equalTo(3L));
+        assertThat(iterator.nextLong(), equalTo(6L));
+        assertThat(iterator.nextLong(), equalTo(9L));
+        assertThat(iterator.hasNext(), is(false));
+    }
+
+    @Test
+    public void iteratesUpToMaxValueWithoutOverflowing() {
+        final PrimitiveIterator.OfLong iterator = new LongRange(Long.MAX_VALUE - 4, Long.MAX_VALUE).step(3L).iterator();
+        assertThat(iterator.nextLong(), equalTo(Long.MAX_VALUE - 4));
+        assertThat(iterator.nextLong(), equalTo(Long.MAX_VALUE - 1));
+        assertThat(iterator.hasNext(), is(false));
+    }
+
+    @Test
+    public void sizeSaturatesForHugeRanges() {
+        assertThat(new LongRange(Long.MIN_VALUE, Long.MAX_VALUE).size(), equalTo(Long.MAX_VALUE));
+        assertThat(new LongRange(-5L, 5L).step(5L).size(), equalTo(3L));
+    }
+
+    @Test
+    public void intersectionAndUnion() {
+        assertThat(new LongRange(1L, 4L).intersection(new LongRange(2L, 5L)), equalTo(new LongRange(2L, 4L)));
+        assertThat(new LongRange(1L, 4L).union(new LongRange(2L, 5L)), equalTo(new LongRange(1L, 5L)));
+    }
+
+    @Test
+    public void spliteratorSplitsAtMidpoint() {
+        final Spliterator.OfLong suffix = new LongRange(0L, 9L).step(2L).spliterator();
+        final Spliterator.OfLong prefix = suffix.trySplit();
+
+        assertThat(prefix.estimateSize(), equalTo(2L));
+        assertThat(suffix.estimateSize(), equalTo(3L));
+    }
+
+    @Test
+    public void spliteratorSplitsRangesWiderThanMaxValue() {
+        final Spliterator.OfLong suffix = new LongRange(Long.MIN_VALUE, Long.MAX_VALUE).step(1L << 62).spliterator();
+        final Spliterator.OfLong prefix = suffix.trySplit();
+
+        assertThat(prefix.estimateSize(), equalTo(2L));
+        assertThat(suffix.estimateSize(), equalTo(2L));
+    }
+
+    @Test
+    public void spliteratorIsOnlySizedWhenTheCountFits() {
+        assertThat(new LongRange(1L, Long.MAX_VALUE).spliterator().hasCharacteristics(Spliterator.SIZED),
+                equalTo(true));
+        assertThat(new LongRange(1L, Long.MAX_VALUE).spliterator().estimateSize(), equalTo(Long.MAX_VALUE));
+
+        final Spliterator.OfLong suffix = new LongRange(Long.MIN_VALUE, Long.MAX_VALUE).spliterator();
+        assertThat(suffix.hasCharacteristics(Spliterator.SIZED), equalTo(false));
+        assertThat(suffix.hasCharacteristics(Spliterator.SUBSIZED), equalTo(false));
+        assertThat(new LongRange(0L, Long.MAX_VALUE).spliterator().hasCharacteristics(Spliterator.SIZED),
+                equalTo(false));
+
+        final Spliterator.OfLong prefix = new LongRange(0L, Long.MAX_VALUE).step(2L).spliterator().trySplit();
+        assertThat(prefix.hasCharacteristics(Spliterator.SIZED | Spliterator.SUBSIZED), equalTo(true));
+    }
+
+    @Test
+    public void parallelStreamVisitsEveryElement() {
+        assertThat(new LongRange(1L, 100000L).parallelStream().sum(), equalTo(5000050000L));
+        assertThat(new LongRange(Long.MAX_VALUE - 2, Long.MAX_VALUE).parallelStream().count(), equalTo(3L));
+    }
+}
@@ -1,16 +1,22 @@
 package com.tjh.util;
 
+import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
 
 import java.math.BigDecimal;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.Date;
 import java.util.EnumMap;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
 
 import static com.tjh.test.Matchers.containsOnly;
 import static org.hamcrest.CoreMatchers.equalTo;
@@ -33,6 +39,7 @@ public class MapsTests{
             Maps.asMap("green", Maps.asMap(BigDecimal.TEN, SUCCESS));
     private Map<String, String> basicMap;
     private Block2<String, String, Object> mockBlock2;
+    private ForkJoinPool pool;
 
     @Test
     public void asMapAssociatesKeysAndValuesAppropriately(){
@@ -61,11 +68,76 @@ public class MapsTests{
         Maps.asMap(Object.class, String.class, new Object(), "BAR", new Object(), new Date());
     }
 
+    @Test
+    public void asConstantMapHoldsKeysAndValues(){
+        final Map<String, Integer> map = Maps.asConstantMap("one", 1, "two", 2, "three", 3);
+
+        assertThat(map, equalTo(Maps.asMap("one", 1, "two", 2, "three", 3)));
+        assertThat(Maps.asConstantMap(String.class, Integer.class, "one", 1).get("one"), equalTo(1));
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void asConstantMapIsImmutable(){
+        Maps.asConstantMap("one", 1).put("two", 2);
+    }
+
     @Test
     public void toMapTranslatesProperly(){
         assertThat(Maps.toMap("{foo=bar, baz=blah}"), equalTo(Maps.asMap("foo", "bar", "baz", "blah")));
     }
 
+    @Test
+    public void toMapAcceptsQuotedAndEscapedValues(){
+        assertThat(Maps.toMap("{a=\"b, c\", \"d e\"=\"f\\,g\", h=\"say \\\"hi\\\"\", i=\"\"}"),
+                equalTo(Maps.asMap("a", "b, c", "d e", "f,g", "h", "say \"hi\"", "i", "")));
+    }
+
+    @Test
+    public void toMapKeepsBackslashesAndQuotesInUnquotedValues(){
+        assertThat(Maps.toMap("{path=C:\\dir\\file, a=say\"hi\", b=\\, c=5\", d\"=1}"),
+                equalTo(Maps.asMap("path", "C:\\dir\\file", "a", "say\"hi\"", "b", "\\", "c", "5\"", "d\"", "1")));
+        assertThat(Maps.toMap("{a=\\}"), equalTo(Maps.asMap("a", "\\")));
+    }
+
+    @Test
+    public void toMapAcceptsLooseSeparators(){
+        assertThat(Maps.toMap("{ foo = bar baz=blah,,last key=1 }"),
+                equalTo(Maps.asMap("foo", "bar", "baz", "blah", "last key", "1")));
+    }
+
+    @Test
+    public void toMapSkipsMalformedEntries(){
+        assertThat(Maps.toMap("{novalue, empty=, =nokey, good=yes}"), equalTo(Maps.asMap("good", "yes")));
+    }
+
+    @Test
+    public void toMapReturnsEmptyMapForNonMapStrings(){
+        assertThat(Maps.toMap("foo=bar").isEmpty(), equalTo(true));
+        assertThat(Maps.toMap("{}").isEmpty(), equalTo(true));
+        assertThat(Maps.toMap("").isEmpty(), equalTo(true));
+    }
+
+    @Test
+    public void toMapReadsCharSequences(){
+        assertThat(Maps.toMap(new StringBuilder("{foo=bar}")), equalTo(Maps.asMap("foo", "bar")));
+    }
+
+    @Test
+    public void toMapReadsUnclosedQuotesLiterally(){
+        assertThat(Maps.toMap("{q=\"}"), equalTo(Maps.asMap("q", "\"")));
+        assertThat(Maps.toMap("{foo=\"bar baz=1}"), equalTo(Maps.asMap("foo", "\"bar", "baz", "1")));
+        assertThat(Maps.toMap("{\"a=1}"), equalTo(Maps.asMap("\"a", "1")));
+    }
+
+    @Test
+    public void toMapWithConvertersConvertsKeysAndValues(){
+        assertThat(Maps.toMap("{1=2, 3=4}", new Block<String, Integer>() {
+            public Integer invoke(final String string) { return Integer.valueOf(string); }
+        }, new Block<String, Integer>() {
+            public Integer invoke(final String string) { return Integer.valueOf(string) * 10; }
+        }), equalTo(Maps.asMap(1, 20, 3, 40)));
+    }
+
     @Test
     public void toMapWithBlockCallsBlockForEachKey() throws Exception{
         Block2<String, String, Map.Entry<String, Object>> mockBlock = mock(Block2.class);
@@ -121,6 +193,23 @@ public class MapsTests{
         assertThat(Maps.<Object, String>valueFor(variedKeyNestedMap, "green", BigDecimal.TEN), equalTo(SUCCESS));
     }
 
+    @Test
+    public void valueForIgnoresTrailingDots(){
+        assertThat(Maps.<String>valueFor(nestedMap, NESTED_MAP_KEYPATH + ".."), equalTo("foo"));
+        assertThat(Maps.<Object>valueFor(nestedMap, "."), equalTo((Object) nestedMap));
+    }
+
+    @Test
+    public void valueForHandlesEmptyKeys(){
+        assertThat(Maps.<String>valueFor(Maps.asMap("", Maps.asMap("a", "b")), ".a"), equalTo("b"));
+    }
+
+    @Test
+    public void putValueForIgnoresTrailingDots(){
+        Maps.putValueFor(nestedMap, NESTED_MAP_KEYPATH + ".", "bar");
+        assertThat(Maps.<String>valueFor(nestedMap, NESTED_MAP_KEYPATH), equalTo("bar"));
+    }
+
     @Test
     public void putValueForReplacesValue(){
         Maps.putValueFor(nestedMap, NESTED_MAP_KEYPATH, "bar");
@@ -245,10 +334,100 @@ public class MapsTests{
                 equalTo(Maps.asMap("one", "ONE", "two", "TWO", "three", "THREE", "four", "FOUR")));
     }
 
+    @Test
+    public void indexGroupsValuesByKey(){
+        final Map<Integer, Collection<Integer>> index = Maps.index(Arrays.asList(1, 2, 3, 4, 5), modulo(2));
+
+        assertThat(index, equalTo(Maps.<Integer, Collection<Integer>>asMap(
+                0, Arrays.asList(2, 4), 1, Arrays.asList(1, 3, 5))));
+    }
+
+    @Test
+    public void indexReducesValuesForEachKey(){
+        final List<Integer> values = Arrays.asList(1, 2, 3, 4, 5);
+
+        assertThat(Maps.index(values, modulo(2), Reducers.<Integer>count()), equalTo(Maps.asMap(0, 2L, 1, 3L)));
+        assertThat(Maps.index(values, modulo(2), Reducers.sum(identity())), equalTo(Maps.asMap(0, 6L, 1, 9L)));
+        assertThat(Maps.index(values, modulo(2), Reducers.<Integer>first()), equalTo(Maps.asMap(0, 2, 1, 1)));
+    }
+
+    @Test
+    public void parallelIndexKeepsValuesInOrder(){
+        final List<Integer> values = range(100000);
+
+        final Map<Integer, Collection<Integer>> index = Maps.index(pool, values, modulo(7));
+
+        assertThat(index, equalTo(Maps.index(values, modulo(7))));
+    }
+
+    @Test
+    public void parallelIndexReducesValuesForEachKey(){
+        final List<Integer> values = range(100000);
+
+        assertThat(Maps.index(pool, values, modulo(7), Reducers.sum(identity())),
+                equalTo(Maps.index(values, modulo(7), Reducers.sum(identity()))));
+        assertThat(Maps.index(pool, new HashSet<Integer>(values), modulo(7),
+                Reducers.<Integer>count()), equalTo(Maps.index(values, modulo(7), Reducers.<Integer>count())));
+    }
+
+    @Test
+    public void parallelIndexCanCombineIntoConcurrentMaps(){
+        final List<Integer> values = range(100000);
+        final ConcurrentHashMap<Integer, Long> target = new ConcurrentHashMap<Integer, Long>();
+        target.put(0, 1000000L);
+
+        Maps.index(pool, values, target, modulo(7), Reducers.<Integer>count());
+
+        final Map<Integer, Long> expected = Maps.index(values, modulo(7), Reducers.<Integer>count());
+        expected.put(0, expected.get(0) + 1000000L);
+        assertThat(target, equalTo(expected));
+    }
+
+    @Test
+    public void parallelIndexLeavesNullResultsOutOfConcurrentMaps(){
+        final List<Integer> values = Arrays.asList(1, null, 3, null);
+        final ConcurrentHashMap<Boolean, Integer> target = new ConcurrentHashMap<Boolean, Integer>();
+        Maps.index(pool, values, target, new Block<Integer, Boolean>(){
+            public Boolean invoke(final Integer integer){ return integer == null; }
+        }, Reducers.<Integer>first());
+
+        assertThat(target, equalTo((Map<Boolean, Integer>) Maps.asMap(false, 1)));
+    }
+
+    @Test
+    public void parallelIndexLeavesNullKeysOutOfConcurrentMaps(){
+        final List<Integer> values = range(1000);
+        final ConcurrentHashMap<Integer, Long> target = new ConcurrentHashMap<Integer, Long>();
+        Maps.index(pool, values, target, new Block<Integer, Integer>(){
+            public Integer invoke(final Integer integer){ return integer % 2 == 0 ? null : 1; }
+        }, Reducers.<Integer>count());
+
+        assertThat(target, equalTo((Map<Integer, Long>) Maps.asMap(1, 500L)));
+    }
+
+    @Test
+    public void parallelIndexDoesNotModifyListsAlreadyInConcurrentMaps(){
+        final List<Integer> existing = new ArrayList<Integer>(Arrays.asList(-1));
+        final ConcurrentHashMap<Integer, Collection<Integer>> target =
+                new ConcurrentHashMap<Integer, Collection<Integer>>();
+        target.put(0, existing);
+
+        Maps.index(pool, range(1000), target, modulo(1), Reducers.<Integer>toList());
+
+        assertThat(existing, equalTo(Arrays.asList(-1)));
+        assertThat(target.get(0).size(), equalTo(1001));
+    }
+
     @Before
     public void before(){
         basicMap = Maps.asMap("one", "ONE", "two", "TWO");
         mockBlock2 = mock(Block2.class);
+        pool = new ForkJoinPool(4);
+    }
+
+    @After
+    public void after(){
+        pool.shutdown();
     }
 
     enum TestEnum{
@@ -256,4 +435,24 @@ public class MapsTests{
         TWO,
         THREE
     }
+
+    private static Block<Integer, Integer> modulo(final int divisor){
+        return new Block<Integer, Integer>(){
+            public Integer invoke(final Integer integer){ return integer % divisor; }
+        };
+    }
+
+    private static Block<Integer, Integer> identity(){
+        return new Block<Integer, Integer>(){
+            public Integer invoke(final Integer integer){ return integer; }
+        };
+    }
+
+    private static List<Integer> range(final int size){
+        final List<Integer> result = new ArrayList<Integer>(size);
+        for(int i = 0; i < size; i++){
+            result.add(i);
+        }
+        return result;
+    }
 }
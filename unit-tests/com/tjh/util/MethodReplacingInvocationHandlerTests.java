@@ -40,6 +40,15 @@ public class MethodReplacingInvocationHandlerTests {
         assertThat((String) handler.invoke(proxy, testMethod, new Object[]{}), equalTo("handler"));
     }
 
+    @Test
+    public void boundMethodCalledIfNotReplaced() throws Throwable {
+        InvocationHandler handler =
+                new MethodReplacingInvocationHandler<MyTest>(MyTest.class, original,
+                        Collections.<Method, ThrowingBlock2<MyTest, Object[], Object, ? extends Throwable>>emptyMap());
+
+        assertThat((String) handler.invoke(proxy, testMethod, null), equalTo("original"));
+    }
+
     @Before
     public void before() throws NoSuchMethodException {
 
@@ -3,6 +3,7 @@ package com.tjh.util;
 import static org.hamcrest.CoreMatchers.equalTo;
 import static org.hamcrest.CoreMatchers.is;
 import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.CoreMatchers.sameInstance;
 import static org.junit.Assert.assertThat;
 
 import com.tjh.util.Maps;
@@ -16,7 +17,16 @@ import org.junit.runner.RunWith;
 
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 @RunWith(Theories.class)
 public class NullObjectFactoryTests {
@@ -86,11 +96,44 @@ public class NullObjectFactoryTests {
         assertThat(nullObject.getFoo(), equalTo(nullObject));
     }
 
+    @Test
+    public void voidMethodsDoNothing(){
+        nullObject.doSomething();
+    }
+
+    @Test
+    public void toStringWithArgumentsReturnsNull(){
+        assertThat(nullObject.toString(3), nullValue());
+    }
+
     @Test
     public void nullObjectForFinalClassReturnsNull(){
         assertThat(NullObjectFactory.nullObject(Integer.class), nullValue());
     }
 
+    @Test
+    public void concurrentFirstUseSharesOneNullObject() throws Exception {
+        final ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            final List<Future<Bar>> futures = new ArrayList<Future<Bar>>();
+            //null objects all equal each other, so compare identities
+            final Set<Bar> results = Collections.newSetFromMap(new IdentityHashMap<Bar, Boolean>());
+            for (int i = 0; i < 16; i++) {
+                futures.add(executor.submit(new Callable<Bar>() {
+                    public Bar call() { return NullObjectFactory.nullObject(Bar.class); }
+                }));
+            }
+            for (final Future<Bar> future : futures) {
+                results.add(future.get());
+            }
+
+            assertThat(results.size(), equalTo(1));
+            assertThat(results.iterator().next(), sameInstance(NullObjectFactory.nullObject(Bar.class)));
+        } finally {
+            executor.shutdown();
+        }
+    }
+
     @Before
     public void before() throws NoSuchMethodException {
         nullObject = NullObjectFactory.nullObject(Foo.class);
@@ -107,6 +150,11 @@ public class NullObjectFactoryTests {
         char getChar(){ return '7';}
         String getString(){ return "some string";}
         Foo getFoo(){ return this; }
+        void doSomething(){ throw new UnsupportedOperationException(); }
+        String toString(int radix){ return "some string"; }
+    }
+
+    public static class Bar {
     }
 
 }
@@ -0,0 +1,105 @@
+package com.tjh.util;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.not;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.junit.Assert.assertThat;
+
+public class ProjectionTests {
+    private Map<String, Object> document;
+
+    @Test
+    public void projectReadsEachKeyPathInOrder() {
+        final Projection projection = Projection.of("a.b.d", "f", "a.e", "a.b.c");
+
+        assertThat(projection.project(document), equalTo(new Object[]{"abd", "f", "ae", "abc"}));
+    }
+
+    @Test
+    public void projectYieldsNullForMissingAndNonMapIntermediates() {
+        final Projection projection = Projection.of("a.missing.c", "f.g", "a.b.missing");
+
+        assertThat(projection.project(document), equalTo(new Object[]{null, null, null}));
+    }
+
+    @Test
+    public void projectHandlesPrefixesAndDuplicates() {
+        final Projection projection = Projection.of("a.e", "a", "a.e");
+
+        final Object[] values = projection.project(document);
+        assertThat(values[0], equalTo((Object) "ae"));
+        assertThat(values[1], equalTo(document.get("a")));
+        assertThat(values[2], equalTo((Object) "ae"));
+    }
+
+    @Test
+    public void projectOverwritesReusedArrays() {
+        final Projection projection = Projection.of("a.b.c", "missing");
+        final Object[] values = new Object[]{"stale", "stale", "untouched"};
+
+        projection.project(document, values);
+        assertThat(values, equalTo(new Object[]{"abc", null, "untouched"}));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void projectRequiresRoomForEveryValue() {
+        Projection.of("a", "f").project(document, new Object[1]);
+    }
+
+    @Test
+    public void projectIntoCopiesValuesToTheSameKeyPaths() {
+        final Map<String, Object> target = new HashMap<String, Object>();
+        target.put("existing", "kept");
+
+        Projection.of("a.b.c", "a.e", "f", "a.missing.c").projectInto(document, target);
+
+        assertThat(Maps.<String>valueFor(target, "a.b.c"), equalTo("abc"));
+        assertThat(Maps.<String>valueFor(target, "a.e"), equalTo("ae"));
+        assertThat(Maps.<String>valueFor(target, "f"), equalTo("f"));
+        assertThat(Maps.<String>valueFor(target, "existing"), equalTo("kept"));
+        assertThat(Maps.<Map>valueFor(target, "a.b").size(), equalTo(1));
+        assertThat(Maps.<Map>valueFor(target, "a").containsKey("missing"), equalTo(false));
+    }
+
+    @Test
+    public void projectIntoCopiesMapValues() {
+        final Map<String, Object> target = Projection.of("a", "a.e").projectInto(document,
+                new HashMap<String, Object>());
+
+        assertThat(target.get("a"), equalTo(document.get("a")));
+        assertThat(target.get("a"), not(sameInstance(document.get("a"))));
+
+        Maps.putValueFor(target, "a.b.c", "changed");
+        Maps.putValueFor(target, "a.new", "added");
+        assertThat(Maps.<String>valueFor(document, "a.b.c"), equalTo("abc"));
+        assertThat(Maps.<Map>valueFor(document, "a").containsKey("new"), equalTo(false));
+    }
+
+    @Test
+    public void projectionsAcceptKeyPaths() {
+        final Projection projection = Projection.of(Arrays.asList(KeyPath.of("a", "e"), KeyPath.compile("f")));
+
+        assertThat(projection.project(document), equalTo(new Object[]{"ae", "f"}));
+        assertThat(projection.getKeyPaths().get(0), equalTo(KeyPath.compile("a.e")));
+    }
+
+    @Before
+    public void before() {
+        document = new HashMap<String, Object>();
+        final Map<String, Object> a = new HashMap<String, Object>();
+        final Map<String, Object> b = new HashMap<String, Object>();
+        b.put("c", "abc");
+        b.put("d", "abd");
+        a.put("b", b);
+        a.put("e", "ae");
+        document.put("a", a);
+        document.put("f", "f");
+    }
+}
@@ -2,6 +2,10 @@ package com.tjh.util;
 
 import org.junit.Test;
 
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
 import static org.hamcrest.CoreMatchers.equalTo;
 import static org.hamcrest.CoreMatchers.is;
 import static org.junit.Assert.assertThat;
@@ -64,4 +68,15 @@ public class RangeTests {
         assertThat(union.getMin(), equalTo(1L));
         assertThat(union.getMax(), equalTo(5L));
     }
+
+    @Test
+    public void parallelStreamPreservesOrder() {
+        final List<Long> longs = new Range<Long>(1L, 5L).parallelStream().collect(Collectors.<Long>toList());
+        assertThat(longs, equalTo(Arrays.asList(1L, 2L, 3L, 4L, 5L)));
+    }
+
+    @Test
+    public void integerRangeIsSized() {
+        assertThat(new Range<Integer>(1, 1000).spliterator().getExactSizeIfKnown(), equalTo(1000L));
+    }
 }
@@ -2,7 +2,15 @@ package com.tjh.util;
 
 import org.junit.Test;
 
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Locale;
+
 import static com.tjh.util.Strings.aOrAn;
+import static com.tjh.util.Strings.appendTo;
 import static com.tjh.util.Strings.join;
 import static org.hamcrest.CoreMatchers.equalTo;
 import static org.junit.Assert.assertThat;
@@ -23,6 +31,19 @@ public class StringsTests {
         assertThat(aOrAn("orchestra"), equalTo("an"));
         assertThat(aOrAn("x"), equalTo("an"));
         assertThat(aOrAn("x-ray"), equalTo("an"));
+        assertThat(aOrAn("Umbrella"), equalTo("an"));
+        assertThat(aOrAn(""), equalTo("a"));
+    }
+
+    @Test
+    public void aOrAnIgnoresDefaultLocale() {
+        final Locale locale = Locale.getDefault();
+        Locale.setDefault(new Locale("tr"));
+        try {
+            assertThat(aOrAn("igloo"), equalTo("an"));
+        } finally {
+            Locale.setDefault(locale);
+        }
     }
 
     @Test
@@ -34,4 +55,31 @@ public class StringsTests {
     public void joinWorksWithNoStrings(){
         assertThat(join(","), equalTo(""));
     }
+
+    @Test
+    public void joinWorksWithArraysFirst() {
+        assertThat(join(new String[]{"a", "b"}, ", "), equalTo("a, b"));
+    }
+
+    @Test
+    public void joinWorksWithObjects() {
+        assertThat(join("-", 1, null, new StringBuilder("c")), equalTo("1-null-c"));
+    }
+
+    @Test
+    public void joinWorksWithIterables() {
+        assertThat(join(",", Arrays.asList("a", "b", "c")), equalTo("a,b,c"));
+        assertThat(join(",", new LinkedHashSet<Integer>(Arrays.asList(1, 2))), equalTo("1,2"));
+        assertThat(join(",", Collections.emptyList()), equalTo(""));
+    }
+
+    @Test
+    public void appendToAppendsToExistingContent() throws IOException {
+        final StringWriter writer = new StringWriter();
+        writer.write("start:");
+
+        assertThat(appendTo(writer, ",", Arrays.asList("a", 1)).toString(), equalTo("start:a,1"));
+        assertThat(appendTo(new StringBuilder("start:"), ",", Arrays.asList("a", 1)).toString(),
+                equalTo("start:a,1"));
+    }
 }